@@ -0,0 +1,399 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+// Append-only history of seat events, bookings and cancellations, that many threads can add
+// to while others read it.
+// Records are stored by column in fixed-size chunks of primitive arrays: a customer id into a
+// dictionary of distinct names, row and seat ints, the category ordinal and the event kind as
+// bytes, the price in paise and the timestamp in epoch seconds (of the local time, read as
+// UTC). A record costs 30 bytes instead of a BookingRecord, a LocalDateTime and a name String.
+// Chunks are never moved, appends are serialized by a short lock, and the size is published
+// last, so a reader that sees size n can read records [0, n) without locking. The list view
+// builds a BookingRecord on each get, so listings page through it like any other list.
+// Time index: each chunk keeps the latest timestamp at or before its end, which never
+// decreases from chunk to chunk, and the log keeps how far any record was stamped before one
+// logged ahead of it (threads stamp a change before queueing for the lock, so this is
+// normally a second at most). A binary search over the chunks then bounds the positions that can hold a
+// given time range, and only those chunks are scanned.
+class BookingLog extends AbstractList<BookingRecord> implements RandomAccess {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MAGIC = 0x53525348;  // "SRSH"
+    private static final int VERSION = 2;         // 1 had no kind column
+    static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte BOOKED = 0, CANCELLED = 1;
+    private static final Category[] CATEGORIES = Category.values();
+
+    private static final class Chunk {
+        final int[] customer = new int[CHUNK];
+        final int[] row = new int[CHUNK];
+        final int[] seat = new int[CHUNK];
+        final byte[] category = new byte[CHUNK];
+        final long[] paise = new long[CHUNK];
+        final long[] time = new long[CHUNK];
+        final byte[] kind = new byte[CHUNK];
+        long latest;  // latest time stamped at or before the end of this chunk
+
+        Chunk(long latest) {
+            this.latest = latest;
+        }
+    }
+
+    // Bookings, cancellations and booked paise per interval of a time range
+    static final class IntervalCounts {
+        final LocalDateTime start;
+        final long stepSeconds;
+        final int[] booked;
+        final int[] cancelled;
+        final long[] bookedPaise;
+
+        IntervalCounts(LocalDateTime start, long stepSeconds, int intervals) {
+            this.start = start;
+            this.stepSeconds = stepSeconds;
+            this.booked = new int[intervals];
+            this.cancelled = new int[intervals];
+            this.bookedPaise = new long[intervals];
+        }
+
+        LocalDateTime intervalStart(int i) {
+            return start.plusSeconds(i * stepSeconds);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> nameIds = new HashMap<>();  // guarded by lock
+    private volatile String[] names = new String[64];
+    private volatile Chunk[] chunks = new Chunk[16];
+    private volatile int size;
+    private long latest = NO_TIME;  // guarded by lock
+    private long lateness;          // written under lock before size is published
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public BookingRecord get(int index) {
+        check(index);
+        Chunk ch = chunks[index >>> CHUNK_BITS];
+        int i = index & (CHUNK - 1);
+        long t = ch.time[i];
+        return new BookingRecord(names[ch.customer[i]], ch.row[i], ch.seat[i], CATEGORIES[ch.category[i]],
+                ch.paise[i] / 100.0, t == NO_TIME ? null : LocalDateTime.ofEpochSecond(t, 0, ZoneOffset.UTC),
+                ch.kind[i] == CANCELLED);
+    }
+
+    // Dictionary id of the record's customer name; equal names share one id
+    int customerId(int index) {
+        check(index);
+        return chunks[index >>> CHUNK_BITS].customer[index & (CHUNK - 1)];
+    }
+
+    long paise(int index) {
+        check(index);
+        return chunks[index >>> CHUNK_BITS].paise[index & (CHUNK - 1)];
+    }
+
+    int row(int index) {
+        check(index);
+        return chunks[index >>> CHUNK_BITS].row[index & (CHUNK - 1)];
+    }
+
+    int seat(int index) {
+        check(index);
+        return chunks[index >>> CHUNK_BITS].seat[index & (CHUNK - 1)];
+    }
+
+    Category category(int index) {
+        check(index);
+        return CATEGORIES[chunks[index >>> CHUNK_BITS].category[index & (CHUNK - 1)]];
+    }
+
+    // When the record was stamped, in epoch seconds of the local time read as UTC, or NO_TIME
+    long epochSecond(int index) {
+        check(index);
+        return chunks[index >>> CHUNK_BITS].time[index & (CHUNK - 1)];
+    }
+
+    boolean isCancellation(int index) {
+        check(index);
+        return chunks[index >>> CHUNK_BITS].kind[index & (CHUNK - 1)] == CANCELLED;
+    }
+
+    // Number of distinct names; ids run from 0 to this minus one
+    int nameCount() {
+        lock.lock();
+        try {
+            return nameIds.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String name(int customerId) {
+        return names[customerId];
+    }
+
+    @Override
+    public boolean add(BookingRecord record) {
+        append(new BookingRecord[]{ record }, 1);
+        return true;
+    }
+
+    // Appends records[0, count) as one unit: readers see all of them or none
+    void append(BookingRecord[] records, int count) {
+        lock.lock();
+        try {
+            int at = size;
+            for (int i = 0; i < count; i++, at++) {
+                BookingRecord br = records[i];
+                Chunk ch = chunkFor(at);
+                int j = at & (CHUNK - 1);
+                ch.customer[j] = idOf(br.customerName);
+                ch.row[j] = br.row;
+                ch.seat[j] = br.seatNumber;
+                ch.category[j] = (byte) br.category.ordinal();
+                ch.paise[j] = Math.round(br.price * 100);
+                ch.time[j] = br.timestamp == null ? NO_TIME : br.timestamp.toEpochSecond(ZoneOffset.UTC);
+                ch.kind[j] = br.cancellation ? CANCELLED : BOOKED;
+                index(ch, ch.time[j]);
+            }
+            size = at;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Calls action with the position of every record stamped within [from, to], in log order
+    void forEachBetween(LocalDateTime from, LocalDateTime to, IntConsumer action) {
+        long lo = seconds(from), hi = seconds(to);
+        int n = size;
+        Chunk[] table = chunks;
+        for (int i = firstAtOrAfter(lo, n), end = endAtOrBefore(hi, n); i < end; i++) {
+            long t = table[i >>> CHUNK_BITS].time[i & (CHUNK - 1)];
+            if (t != NO_TIME && t >= lo && t <= hi) action.accept(i);
+        }
+    }
+
+    // Counts bookings and cancellations stamped within [from, from + intervals * step)
+    IntervalCounts countBetween(LocalDateTime from, long stepSeconds, int intervals) {
+        if (stepSeconds < 1 || intervals < 1) throw new IllegalArgumentException("need a positive step and interval count");
+        IntervalCounts counts = new IntervalCounts(from, stepSeconds, intervals);
+        long lo = seconds(from), hi = lo + stepSeconds * intervals - 1;
+        int n = size;
+        Chunk[] table = chunks;
+        for (int i = firstAtOrAfter(lo, n), end = endAtOrBefore(hi, n); i < end; i++) {
+            Chunk ch = table[i >>> CHUNK_BITS];
+            int j = i & (CHUNK - 1);
+            long t = ch.time[j];
+            if (t == NO_TIME || t < lo || t > hi) continue;
+            int bucket = (int) ((t - lo) / stepSeconds);
+            if (ch.kind[j] == CANCELLED) counts.cancelled[bucket]++;
+            else {
+                counts.booked[bucket]++;
+                counts.bookedPaise[bucket] += ch.paise[j];
+            }
+        }
+        return counts;
+    }
+
+    // Number of records logged before the first one stamped after t, out of the first n: the
+    // prefix of the log that makes up the state as of t
+    int countUpTo(LocalDateTime t, int n) {
+        long at = seconds(t);
+        Chunk[] table = chunks;
+        int lo = 0, hi = (n + CHUNK - 1) >>> CHUNK_BITS;
+        while (lo < hi) {  // first chunk with a record later than at
+            int mid = (lo + hi) >>> 1;
+            if (table[mid].latest > at) hi = mid;
+            else lo = mid + 1;
+        }
+        if (lo << CHUNK_BITS >= n) return n;
+        Chunk ch = table[lo];
+        for (int i = lo << CHUNK_BITS; i < n; i++) {
+            long time = ch.time[i & (CHUNK - 1)];
+            if (time != NO_TIME && time > at) return i;
+        }
+        return n;
+    }
+
+    // Writes records [0, count) to file and fsyncs it: a header and the name dictionary
+    // (big-endian, as DataOutputStream writes them), then each column in turn as little-endian arrays
+    void write(Path file, int count) throws IOException {
+        int nameCount = nameCount();  // may include names of records past count; harmless
+        String[] dict = names;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(fc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(nameCount);
+            for (int i = 0; i < nameCount; i++) out.writeUTF(dict[i]);
+            byte[] buf = new byte[CHUNK * Long.BYTES];
+            ByteBuffer bb = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+            for (int column = 0; column < 7; column++) {
+                for (int from = 0; from < count; from += CHUNK) {
+                    Chunk ch = chunks[from >>> CHUNK_BITS];
+                    int n = Math.min(CHUNK, count - from);
+                    bb.clear();
+                    switch (column) {
+                        case 0 -> bb.asIntBuffer().put(ch.customer, 0, n);
+                        case 1 -> bb.asIntBuffer().put(ch.row, 0, n);
+                        case 2 -> bb.asIntBuffer().put(ch.seat, 0, n);
+                        case 3 -> bb.put(ch.category, 0, n);
+                        case 4 -> bb.asLongBuffer().put(ch.paise, 0, n);
+                        case 5 -> bb.asLongBuffer().put(ch.time, 0, n);
+                        default -> bb.put(ch.kind, 0, n);
+                    }
+                    out.write(buf, 0, n * width(column));
+                }
+            }
+            out.flush();
+            fc.force(true);
+        }
+    }
+
+    // Appends every record in a file written by write(); the log must be empty
+    void read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < 16 || in.getInt() != MAGIC) throw new IOException(file + " is not a booking history file");
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) throw new IOException(file + " has an unsupported version");
+        int count = in.getInt(), nameCount = in.getInt();
+        lock.lock();
+        try {
+            if (size != 0) throw new IllegalStateException("history already loaded");
+            DataInputStream dict = new DataInputStream(new ByteArrayInputStream(in.array(), in.position(), in.remaining()));
+            int before = dict.available();
+            for (int i = 0; i < nameCount; i++) idOf(dict.readUTF());
+            if (nameIds.size() != nameCount) throw new IOException(file + " repeats a customer name");
+            in.position(in.position() + before - dict.available());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            for (int from = 0; from < count; from += CHUNK) chunkFor(from);
+            for (int column = 0; column < (version == 1 ? 6 : 7); column++) {
+                for (int from = 0; from < count; from += CHUNK) {
+                    Chunk ch = chunks[from >>> CHUNK_BITS];
+                    int n = Math.min(CHUNK, count - from);
+                    switch (column) {
+                        case 0 -> in.asIntBuffer().get(ch.customer, 0, n);
+                        case 1 -> in.asIntBuffer().get(ch.row, 0, n);
+                        case 2 -> in.asIntBuffer().get(ch.seat, 0, n);
+                        case 3 -> in.get(ch.category, 0, n);
+                        case 4 -> in.asLongBuffer().get(ch.paise, 0, n);
+                        case 5 -> in.asLongBuffer().get(ch.time, 0, n);
+                        default -> in.get(ch.kind, 0, n);
+                    }
+                    if (width(column) > 1) in.position(in.position() + n * width(column));
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                Chunk ch = chunks[i >>> CHUNK_BITS];
+                int j = i & (CHUNK - 1);
+                if (ch.customer[j] < 0 || ch.customer[j] >= nameCount || ch.category[j] < 0 || ch.category[j] >= CATEGORIES.length
+                        || (ch.kind[j] != BOOKED && ch.kind[j] != CANCELLED))
+                    throw new IOException(file + " is corrupt at record " + i);
+                index(ch, ch.time[j]);
+            }
+            size = count;
+        } catch (java.nio.BufferUnderflowException | EOFException e) {
+            throw new IOException(file + " is truncated");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Whether file exists and starts like a file written by write()
+    static boolean isBinary(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return false;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static int width(int column) {
+        return column < 3 ? Integer.BYTES : column == 3 || column == 6 ? 1 : Long.BYTES;
+    }
+
+    private static long seconds(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // First position, out of the first n, that can hold a record stamped at or after t: every
+    // record in an earlier chunk is stamped before t
+    private int firstAtOrAfter(long t, int n) {
+        Chunk[] table = chunks;
+        int lo = 0, hi = (n + CHUNK - 1) >>> CHUNK_BITS;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (table[mid].latest >= t) hi = mid;
+            else lo = mid + 1;
+        }
+        return Math.min(n, lo << CHUNK_BITS);
+    }
+
+    // Position, out of the first n, past which no record is stamped at or before t: from a
+    // chunk that starts after a record later than t + lateness, every record is later than t
+    private int endAtOrBefore(long t, int n) {
+        long bound = t > Long.MAX_VALUE - lateness ? Long.MAX_VALUE : t + lateness;
+        Chunk[] table = chunks;
+        int lo = 1, hi = (n + CHUNK - 1) >>> CHUNK_BITS;
+        while (lo < hi) {  // first chunk whose predecessor ends past bound
+            int mid = (lo + hi) >>> 1;
+            if (table[mid - 1].latest > bound) hi = mid;
+            else lo = mid + 1;
+        }
+        return Math.min(n, lo << CHUNK_BITS);
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+    }
+
+    // Updates the time index for a record just stored in ch; caller holds lock
+    private void index(Chunk ch, long time) {
+        if (time != NO_TIME) {
+            if (time < latest) lateness = Math.max(lateness, latest - time);
+            else latest = time;
+        }
+        ch.latest = latest;
+    }
+
+    // Chunk holding record at, allocated if needed; caller holds lock
+    private Chunk chunkFor(int at) {
+        Chunk[] table = chunks;
+        int chunk = at >>> CHUNK_BITS;
+        if (chunk == table.length) chunks = table = Arrays.copyOf(table, table.length * 2);
+        if (table[chunk] == null) table[chunk] = new Chunk(latest);
+        return table[chunk];
+    }
+
+    // Dictionary id for name, adding it if new; caller holds lock
+    private int idOf(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) return id;
+        int next = nameIds.size();
+        String[] dict = names;
+        if (next == dict.length) dict = Arrays.copyOf(dict, next * 2);
+        dict[next] = name;
+        names = dict;
+        nameIds.put(name, next);
+        return next;
+    }
+}
@@ -0,0 +1,27 @@
+import java.time.LocalDateTime;
+
+// Booking record class to store reservation history; a cancellation record names the
+// customer whose booking was cancelled and the seat's price at the time
+class BookingRecord {
+    String customerName;
+    int row, seatNumber;
+    Category category;
+    double price;
+    LocalDateTime timestamp;
+    boolean cancellation;
+
+    BookingRecord(String customerName, int row, int seatNumber, Category category, double price, LocalDateTime timestamp) {
+        this(customerName, row, seatNumber, category, price, timestamp, false);
+    }
+
+    BookingRecord(String customerName, int row, int seatNumber, Category category, double price, LocalDateTime timestamp,
+                  boolean cancellation) {
+        this.customerName = customerName;
+        this.row = row;
+        this.seatNumber = seatNumber;
+        this.category = category;
+        this.price = price;
+        this.timestamp = timestamp;
+        this.cancellation = cancellation;
+    }
+}
@@ -0,0 +1,2 @@
+// Enum for seat categories
+enum Category { VIP, REGULAR, ECONOMY }
@@ -0,0 +1,131 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Bookings in history grouped by case-folded customer name. Each customer keeps the history
+// positions of their bookings plus running totals net of cancellations, so a name lookup
+// touches only that customer's records, and the sorted map answers prefix lookups with one
+// range view.
+class CustomerIndex {
+    // Totals for one customer at one moment: the seats they still hold and what they paid for
+    // them
+    static final class Summary {
+        final String name;
+        final int seats;
+        final long spentPaise;
+
+        Summary(String name, int seats, long spentPaise) {
+            this.name = name;
+            this.seats = seats;
+            this.spentPaise = spentPaise;
+        }
+
+        double spent() {
+            return spentPaise / 100.0;
+        }
+    }
+
+    private static final class Customer {
+        final String name;  // as first booked
+        private int[] records = new int[4];
+        private int count;
+        private int seats;
+        private long spentPaise;
+
+        Customer(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(int historyIndex, long paise) {
+            append(historyIndex, paise);
+        }
+
+        synchronized void cancel(long paise) {
+            uncount(paise);
+        }
+
+        // Unlocked add, for a customer no other thread can see yet
+        void append(int historyIndex, long paise) {
+            if (count == records.length) records = Arrays.copyOf(records, count * 2);
+            records[count++] = historyIndex;
+            seats++;
+            spentPaise += paise;
+        }
+
+        // Unlocked cancel, likewise; the booking stays among the records
+        void uncount(long paise) {
+            seats--;
+            spentPaise -= paise;
+        }
+
+        synchronized int[] records() {
+            return Arrays.copyOf(records, count);
+        }
+
+        synchronized Summary summary() {
+            return new Summary(name, seats, spentPaise);
+        }
+    }
+
+    private volatile ConcurrentSkipListMap<String, Customer> customers = new ConcurrentSkipListMap<>();
+
+    // Indexes the booking stored at historyIndex
+    void add(int historyIndex, BookingRecord br) {
+        customers.computeIfAbsent(fold(br.customerName), k -> new Customer(br.customerName))
+                 .add(historyIndex, Math.round(br.price * 100));
+    }
+
+    // Takes a cancelled seat, at the price it was booked at, off its customer's totals
+    void cancel(BookingRecord event) {
+        Customer c = customers.get(fold(event.customerName));
+        if (c != null) c.cancel(Math.round(event.price * 100));
+    }
+
+    // Replaces the index with one built from the whole history. Names are folded once per
+    // entry in the history's name dictionary, records are grouped by their dictionary id, and
+    // the result is sorted once instead of taking a skip-list insert per record.
+    void rebuild(BookingLog history) {
+        int n = history.size();
+        Map<String, Customer> grouped = new HashMap<>();
+        Customer[] byId = new Customer[history.nameCount()];
+        for (int i = 0; i < n; i++) {
+            int id = history.customerId(i);
+            Customer c = byId[id];
+            if (c == null) {
+                String name = history.name(id);
+                byId[id] = c = grouped.computeIfAbsent(fold(name), k -> new Customer(name));
+            }
+            if (history.isCancellation(i)) c.uncount(history.paise(i));
+            else c.append(i, history.paise(i));
+        }
+        customers = new ConcurrentSkipListMap<>(new TreeMap<>(grouped));
+    }
+
+    // History positions of every booking under this name, oldest first
+    int[] records(String name) {
+        Customer c = customers.get(fold(name));
+        return c == null ? new int[0] : c.records();
+    }
+
+    Summary summary(String name) {
+        Customer c = customers.get(fold(name));
+        return c == null ? null : c.summary();
+    }
+
+    // Up to limit customers whose folded name starts with prefix, in name order
+    List<Summary> byPrefix(String prefix, int limit) {
+        String p = fold(prefix);
+        ConcurrentNavigableMap<String, Customer> range = p.isEmpty() ? customers
+                : customers.subMap(p, true, p + Character.MAX_VALUE, false);
+        List<Summary> result = new ArrayList<>();
+        for (Customer c : range.values()) {
+            if (result.size() >= limit) break;
+            result.add(c.summary());
+        }
+        return result;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Max segment tree over rows holding each row's longest run of free seats, so the allocator
+// can jump straight to the nearest row that fits a party instead of visiting every row.
+// Rows are updated by different threads under different row locks; an inner node is
+// recomputed with a CAS loop, so the last writer always leaves it equal to the max of what
+// its children hold at that moment.
+class FreeRunIndex {
+    private final int leaves;
+    private final AtomicIntegerArray tree;
+
+    FreeRunIndex(int rows, int initialRun) {
+        int n = 1;
+        while (n < rows) n <<= 1;
+        leaves = n;
+        tree = new AtomicIntegerArray(2 * n);
+        for (int r = 0; r < rows; r++) tree.set(n + r, initialRun);
+        for (int i = n - 1; i >= 1; i--) tree.set(i, Math.max(tree.get(2 * i), tree.get(2 * i + 1)));
+    }
+
+    // Records row's (0-based) longest free run and fixes up its ancestors
+    void update(int row, int run) {
+        int i = leaves + row;
+        tree.set(i, run);
+        for (i >>>= 1; i >= 1; i >>>= 1) {
+            while (true) {
+                int old = tree.get(i);
+                int max = Math.max(tree.get(2 * i), tree.get(2 * i + 1));
+                if (old == max || tree.compareAndSet(i, old, max)) break;
+            }
+        }
+    }
+
+    int get(int row) {
+        return tree.get(leaves + row);
+    }
+
+    // Lowest row in [from, to] whose longest run is at least n, or -1
+    int firstAtLeast(int from, int to, int n) {
+        return first(1, 0, leaves - 1, from, to, n);
+    }
+
+    // Highest row in [from, to] whose longest run is at least n, or -1
+    int lastAtLeast(int from, int to, int n) {
+        return last(1, 0, leaves - 1, from, to, n);
+    }
+
+    private int first(int node, int lo, int hi, int from, int to, int n) {
+        if (hi < from || lo > to || tree.get(node) < n) return -1;
+        if (lo == hi) return lo;
+        int mid = (lo + hi) >>> 1;
+        int left = first(2 * node, lo, mid, from, to, n);
+        return left >= 0 ? left : first(2 * node + 1, mid + 1, hi, from, to, n);
+    }
+
+    private int last(int node, int lo, int hi, int from, int to, int n) {
+        if (hi < from || lo > to || tree.get(node) < n) return -1;
+        if (lo == hi) return lo;
+        int mid = (lo + hi) >>> 1;
+        int right = last(2 * node + 1, mid + 1, hi, from, to, n);
+        return right >= 0 ? right : last(2 * node, lo, mid, from, to, n);
+    }
+}
@@ -0,0 +1,12 @@
+import java.time.LocalDateTime;
+
+// Who holds a reserved seat; free seats have none
+class Occupant {
+    final String customerName;
+    final LocalDateTime bookedAt;
+
+    Occupant(String customerName, LocalDateTime bookedAt) {
+        this.customerName = customerName;
+        this.bookedAt = bookedAt;
+    }
+}
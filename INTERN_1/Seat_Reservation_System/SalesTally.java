@@ -0,0 +1,115 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Running sales totals, kept in step with history so a dashboard reads them in O(1) instead of
+// re-summing every record: seats booked and cancelled and net revenue per category, plus a
+// ring of per-minute buckets covering the last day. Every booking or cancellation updates a
+// fixed number of counters. Updates come from one thread at a time (Theater's history lock);
+// reads take no lock and may run while bookings are in flight.
+class SalesTally {
+    static final int MINUTES = 24 * 60;
+    private static final int CATEGORIES = Category.values().length;
+
+    private final AtomicLongArray booked = new AtomicLongArray(CATEGORIES);
+    private final AtomicLongArray cancelled = new AtomicLongArray(CATEGORIES);
+    private final AtomicLongArray netPaise = new AtomicLongArray(CATEGORIES);
+    // Ring slot m % MINUTES holds epoch minute m (of the local time, read as UTC), if stamped so
+    private final AtomicLongArray minute = new AtomicLongArray(MINUTES);
+    private final AtomicLongArray minuteBooked = new AtomicLongArray(MINUTES);
+    private final AtomicLongArray minuteCancelled = new AtomicLongArray(MINUTES);
+    private final AtomicLongArray minutePaise = new AtomicLongArray(MINUTES);
+
+    SalesTally() {
+        for (int i = 0; i < MINUTES; i++) minute.set(i, Long.MIN_VALUE);
+    }
+
+    void add(BookingRecord br) {
+        add(br.category, Math.round(br.price * 100), br.cancellation,
+            br.timestamp == null ? BookingLog.NO_TIME : br.timestamp.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    // epochSecond as BookingLog keeps it, NO_TIME for an unstamped record
+    void add(Category category, long paise, boolean cancellation, long epochSecond) {
+        int c = category.ordinal();
+        if (cancellation) {
+            cancelled.incrementAndGet(c);
+            netPaise.addAndGet(c, -paise);
+        } else {
+            booked.incrementAndGet(c);
+            netPaise.addAndGet(c, paise);
+        }
+        if (epochSecond == BookingLog.NO_TIME) return;
+        long m = Math.floorDiv(epochSecond, 60);
+        int slot = (int) Math.floorMod(m, (long) MINUTES);
+        long stamped = minute.get(slot);
+        if (stamped > m) return;  // more than a day older than what the ring holds
+        if (stamped < m) {
+            // the slot's minute is a day gone: empty it before claiming it for this one
+            minuteBooked.set(slot, 0);
+            minuteCancelled.set(slot, 0);
+            minutePaise.set(slot, 0);
+            minute.set(slot, m);
+        }
+        if (cancellation) minuteCancelled.incrementAndGet(slot);
+        else {
+            minuteBooked.incrementAndGet(slot);
+            minutePaise.addAndGet(slot, paise);
+        }
+    }
+
+    // Replaces the totals with ones summed over the whole history
+    void rebuild(BookingLog history) {
+        for (int c = 0; c < CATEGORIES; c++) {
+            booked.set(c, 0);
+            cancelled.set(c, 0);
+            netPaise.set(c, 0);
+        }
+        for (int i = 0; i < MINUTES; i++) minute.set(i, Long.MIN_VALUE);
+        int n = history.size();
+        for (int i = 0; i < n; i++) {
+            add(history.category(i), history.paise(i), history.isCancellation(i), history.epochSecond(i));
+        }
+    }
+
+    long booked(Category category) {
+        return booked.get(category.ordinal());
+    }
+
+    long cancelled(Category category) {
+        return cancelled.get(category.ordinal());
+    }
+
+    // Booked paise less refunded paise
+    long revenuePaise(Category category) {
+        return netPaise.get(category.ordinal());
+    }
+
+    long revenuePaise() {
+        long sum = 0;
+        for (int c = 0; c < CATEGORIES; c++) sum += netPaise.get(c);
+        return sum;
+    }
+
+    // Per-minute counts for the minutes minutes up to and including the one holding now,
+    // oldest first; at most a day back
+    BookingLog.IntervalCounts lastMinutes(LocalDateTime now, int minutes) {
+        int n = Math.max(1, Math.min(minutes, MINUTES));
+        long current = Math.floorDiv(now.toEpochSecond(ZoneOffset.UTC), 60);
+        long first = current - n + 1;
+        BookingLog.IntervalCounts counts = new BookingLog.IntervalCounts(
+                LocalDateTime.ofEpochSecond(first * 60, 0, ZoneOffset.UTC), 60, n);
+        for (int i = 0; i < n; i++) {
+            long m = first + i;
+            int slot = (int) Math.floorMod(m, (long) MINUTES);
+            if (minute.get(slot) != m) continue;
+            int b = (int) minuteBooked.get(slot), c = (int) minuteCancelled.get(slot);
+            long p = minutePaise.get(slot);
+            if (minute.get(slot) != m) continue;  // reused for a new minute while being read
+            counts.booked[i] = b;
+            counts.cancelled[i] = c;
+            counts.bookedPaise[i] = p;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Append-only log of seat changes, so a booking costs one short line instead of rewriting
+// seats.csv and the history file. Records, each framed with a CRC32:
+//   B,<history index>,<yyyy-MM-dd HH:mm:ss>,<row>:<seat>:<price>;...,<customer name>
+//   C,<history index>,<yyyy-MM-dd HH:mm:ss>,<row>,<seat>,<price>,<customer name>
+// (older journals hold cancellations as C,<row>,<seat>, which replay only frees the seat)
+// Records are written with group commit by GroupCommitLog. Once the log outgrows the venue
+// plus history it is rolled aside and both files are rewritten from a copy of the theater on
+// a background thread.
+// Replay is safe over a snapshot taken at any point after the rolled log began: a booking
+// or cancel sets the seat outright, and a record whose history index is already loaded
+// does not add to history again.
+class SeatJournal implements Closeable {
+    private static final int COMPACT_MIN_RECORDS = 10_000;
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final GroupCommitLog log;
+    private final String seatsFile;
+    private final String historyFile;
+    private final Theater theater;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "seat-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object lock = new Object();
+    private boolean compacting;
+    private boolean closed;
+
+    SeatJournal(String journalFile, String seatsFile, String historyFile, Theater theater) {
+        this.log = new GroupCommitLog(Paths.get(journalFile), "seat-journal-writer");
+        this.seatsFile = seatsFile;
+        this.historyFile = historyFile;
+        this.theater = theater;
+    }
+
+    // Replays the rolled and live journals over the already loaded snapshot, drops a torn
+    // tail left by a crash, and starts the writer. Returns the number of records applied.
+    int recover() throws IOException {
+        boolean interruptedCompaction = log.hasRolled();
+        int applied = log.open(this::apply);
+        // a crash between rolling and snapshotting leaves the rolled file behind; fold it now
+        if (interruptedCompaction) checkpoint();
+        return applied;
+    }
+
+    // records[0, count) are to be appended to history starting at historyIndex
+    long logBooking(int historyIndex, BookingRecord[] records, int count) throws IOException {
+        StringBuilder sb = new StringBuilder(48 + count * 16);
+        sb.append("B,").append(historyIndex).append(',').append(records[0].timestamp.format(DTF)).append(',');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(records[i].row).append(':').append(records[i].seatNumber).append(':').append(records[i].price);
+        }
+        sb.append(',').append(records[0].customerName.replace('\n', ' ').replace('\r', ' '));
+        return log.append(sb.toString());
+    }
+
+    // event is to be appended to history at historyIndex
+    long logCancel(int historyIndex, BookingRecord event) throws IOException {
+        return log.append("C," + historyIndex + "," + event.timestamp.format(DTF) + "," + event.row + "," + event.seatNumber
+                + "," + event.price + "," + event.customerName.replace('\n', ' ').replace('\r', ' '));
+    }
+
+    // Blocks until every record up to seq has been fsynced
+    void awaitDurable(long seq) throws IOException {
+        log.awaitDurable(seq);
+    }
+
+    // True once a write has failed; the journal then refuses every record, and the theater
+    // may hold changes that are not on disk
+    boolean failed() {
+        return log.failed();
+    }
+
+    // Starts a background snapshot once the log has grown past the theater's own size. The
+    // theater calls this with no row locks held, since copying the theater takes all of them.
+    void maybeCompact() throws IOException {
+        synchronized (lock) {
+            if (compacting || closed || log.recordsSinceRoll() < Math.max(COMPACT_MIN_RECORDS, theater.snapshotSize())) return;
+            compacting = true;
+            try {
+                log.roll();
+            } catch (IOException e) {
+                compacting = false;
+                throw e;
+            }
+        }
+        // copied after the roll, so it holds at least everything in the rolled file
+        Theater.Snapshot copy = Metrics.time(Theater.SNAPSHOT, theater::snapshot);
+        compactor.execute(() -> {
+            try {
+                Metrics.time(Theater.WRITE_SNAPSHOT, () -> theater.writeSnapshot(copy, seatsFile, historyFile));
+                log.deleteRolled();
+            } catch (IOException e) {
+                // the rolled journal stays behind; the next roll appends to it
+                System.out.println("Error compacting journal: " + e.getMessage());
+            } finally {
+                synchronized (lock) {
+                    compacting = false;
+                    lock.notifyAll();
+                }
+            }
+        });
+    }
+
+    // Writes both files right now and empties the journal
+    void checkpoint() throws IOException {
+        synchronized (lock) {
+            waitForCompaction();
+            log.roll();
+        }
+        Theater.Snapshot copy = Metrics.time(Theater.SNAPSHOT, theater::snapshot);
+        Metrics.time(Theater.WRITE_SNAPSHOT, () -> theater.writeSnapshot(copy, seatsFile, historyFile));
+        log.deleteRolled();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            waitForCompaction();
+            closed = true;
+        }
+        compactor.shutdown();
+        log.close();
+    }
+
+    // Closes the journal without writing anything more, for a theater being thrown away
+    void abandon() throws IOException {
+        synchronized (lock) {
+            closed = true;
+        }
+        compactor.shutdown();
+        log.abandon();
+    }
+
+    private void waitForCompaction() throws IOException {
+        while (compacting) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for journal compaction");
+            }
+        }
+    }
+
+    private void apply(String record) {
+        String[] data = record.split(",", record.startsWith("C,") ? 7 : 5);
+        switch (data[0]) {
+            case "B" -> {
+                String[] seats = data[3].split(";");
+                int[] rows = new int[seats.length], numbers = new int[seats.length];
+                double[] prices = new double[seats.length];
+                for (int i = 0; i < seats.length; i++) {
+                    String[] f = seats[i].split(":");
+                    rows[i] = Integer.parseInt(f[0]);
+                    numbers[i] = Integer.parseInt(f[1]);
+                    prices[i] = Double.parseDouble(f[2]);
+                }
+                theater.replayBooking(Integer.parseInt(data[1]), LocalDateTime.parse(data[2], DTF),
+                        rows, numbers, prices, data[4]);
+            }
+            case "C" -> {
+                if (data.length == 3) theater.replayCancel(Integer.parseInt(data[1]), Integer.parseInt(data[2]));
+                else theater.replayCancel(Integer.parseInt(data[1]), LocalDateTime.parse(data[2], DTF),
+                        Integer.parseInt(data[3]), Integer.parseInt(data[4]), Double.parseDouble(data[5]), data[6]);
+            }
+            default -> throw new IllegalArgumentException("unknown record type " + data[0]);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Load generator for capacity planning (srs --load storm|replay|check [options]). Drives one
+// Theater in-process with many concurrent clients and reports throughput, latency
+// percentiles and errors per operation (see LoadStats).
+//   storm             clients book and cancel against the venue for --seconds: each books a
+//                     party of adjacent seats in one row around a seat drawn by --skew, or,
+//                     with probability --cancel, gives back one seat it booked
+//   replay <history>  re-issues a history file (binary or CSV) in order with its original
+//                     spacing, --speed times faster; seats booked together are one call.
+//                     Calls are dealt to the clients in turn, and a call waits for the last
+//                     earlier one on each of its seats, so every seat sees them in order.
+//                     Latency counts from when an event was due, so a backlog behind a slow
+//                     call shows up instead of hiding.
+//   check             fires --attempts bookings at once, each on its own client, clustered on
+//                     the front-centre seats and some spanning two rows, then checks that no
+//                     seat was sold twice: each successful booking claims its seats in an
+//                     ownership table, and the seats taken, their occupants and each
+//                     customer's history must all agree with it. Mismatches count as errors.
+// Options:
+//   --rows N --cols N  venue size (storm and check 50x40; replay: the largest row and seat in
+//                      the history)
+//   --clients N        concurrent clients (storm 1000, replay 64)
+//   --attempts N       bookings a check fires at once (10000)
+//   --seconds N        storm length (10)
+//   --skew S           0 picks seats uniformly; higher piles demand onto the front-centre
+//                      seats (at 1 a third of it goes to the best tenth of the house) (1)
+//   --cancel F         fraction of storm operations that cancel (0.2)
+//   --party N          largest party a storm or check client books at once (4)
+//   --think MS         pause of a storm client between calls, in milliseconds (0.1)
+//   --speed X          replay speed-up, 0 to go as fast as the clients can (1)
+//   --max-gap S        replay: quiet spells longer than S seconds are cut to S
+//   --watch MS         storm and replay: keep the seating map on the terminal while they run,
+//                      refreshed every MS milliseconds; after the first full draw each refresh
+//                      sends only the seats that changed
+//   --dir D            journal to seats.csv, history.bin and bookings.journal in D, waiting for
+//                      every fsync as the live program does; without it only the in-memory
+//                      engine is measured. Files already in D are loaded first.
+class SeatLoad {
+    private static final Set<String> OPTIONS = Set.of("rows", "cols", "clients", "attempts", "seconds", "skew", "cancel",
+            "party", "think", "speed", "max-gap", "watch", "dir");
+
+    // One replayed call: a booking of one or more seats, or a cancellation of one
+    private static final class Event {
+        static final Event END = new Event(new int[0], new int[0], null, false);
+
+        final int[] rows, seats;  // 1-based
+        final String name;
+        final boolean cancel;
+        final CountDownLatch finished = new CountDownLatch(1);
+        Event[] after;  // the calls before it on its seats
+        long offset;  // nanoseconds after the start of the replay it is due
+        long due;
+
+        Event(int[] rows, int[] seats, String name, boolean cancel) {
+            this.rows = rows;
+            this.seats = seats;
+            this.name = name;
+            this.cancel = cancel;
+        }
+
+        List<int[]> positions() {
+            List<int[]> positions = new ArrayList<>(seats.length);
+            for (int i = 0; i < seats.length; i++) positions.add(new int[]{rows[i], seats[i]});
+            return positions;
+        }
+    }
+
+    // The seating map kept up to date on the terminal, the way a remote display would follow a
+    // show: one full draw, then cursor moves to just the seats that changed since
+    private static final class Watch {
+        private final SeatMap.Viewer viewer;
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-map-watch");
+            t.setDaemon(true);
+            return t;
+        });
+        private long refreshes, redrawn;  // the timer's until stop() has waited for it
+
+        Watch(Theater theater, long periodNanos) {
+            viewer = theater.seatMapViewer(System.out);
+            timer.scheduleAtFixedRate(() -> {
+                try {
+                    refresh();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void refresh() throws IOException {
+            redrawn += viewer.update();
+            refreshes++;
+        }
+
+        // Stops the timer, draws the final state and reports what the view cost
+        void stop() throws IOException, InterruptedException {
+            timer.shutdown();
+            timer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            refresh();
+            System.out.printf("Seating map: %d refreshes, %d seats redrawn%n", refreshes, redrawn);
+        }
+    }
+
+    private final Map<Category, Double> prices;
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> arguments = new ArrayList<>();
+    private final LoadStats book = new LoadStats("book");
+    private final LoadStats cancel = new LoadStats("cancel");
+    private long mismatches;  // check: seats sold twice or disagreeing with their booking
+
+    SeatLoad(String[] args, Map<Category, Double> prices) {
+        this.prices = prices;
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                arguments.add(args[i]);
+                continue;
+            }
+            String key = args[i].substring(2);
+            if (!OPTIONS.contains(key)) throw new IllegalArgumentException("unknown option " + args[i]);
+            if (i + 1 == args.length) throw new IllegalArgumentException(args[i] + " needs a value");
+            options.put(key, args[++i]);
+        }
+        if (arguments.isEmpty()) throw new IllegalArgumentException("choose storm, replay <history file> or check");
+    }
+
+    // Runs the chosen workload and prints its report; returns the number of calls that failed
+    long run() throws IOException, InterruptedException {
+        switch (arguments.get(0)) {
+            case "storm" -> storm();
+            case "replay" -> {
+                if (arguments.size() < 2) throw new IllegalArgumentException("replay needs a history file");
+                replay(Paths.get(arguments.get(1)));
+            }
+            case "check" -> check();
+            default -> throw new IllegalArgumentException("unknown workload '" + arguments.get(0) + "'");
+        }
+        return book.errors() + cancel.errors() + mismatches;
+    }
+
+    private void storm() throws IOException, InterruptedException {
+        int rows = intOption("rows", 50), cols = intOption("cols", 40), clients = intOption("clients", 1000);
+        int party = Math.min(intOption("party", 4), cols);
+        double seconds = number("seconds", 10), skew = number("skew", 1), cancelRatio = number("cancel", 0.2);
+        long think = (long) (number("think", 0.1) * 1e6);
+        Theater theater = open(rows, cols);
+        int[] hot = seatsByDesirability(rows, cols);
+        System.out.printf("Storm: %dx%d venue, %d clients for %.0f s, skew %.2f, cancel ratio %.2f, parties up to %d, think %.1f ms%n",
+                rows, cols, clients, seconds, skew, cancelRatio, party, think / 1e6);
+
+        Watch watch = watch(theater);
+        long begin = System.nanoTime(), deadline = begin + (long) (seconds * 1e9);
+        ExecutorService pool = LoadStats.clients();
+        for (int k = 0; k < clients; k++) {
+            String name = "client-" + k;
+            pool.execute(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                List<int[]> mine = new ArrayList<>();  // seats this client has booked
+                while (System.nanoTime() < deadline) {
+                    // besides pacing the client like a person at a booking screen, the pause takes its
+                    // virtual thread off the carrier; yielding alone lets clients that never block
+                    // starve the ones woken from a lock, for seconds at a time
+                    LockSupport.parkNanos(think);
+                    if (!mine.isEmpty() && rnd.nextDouble() < cancelRatio) {
+                        int i = rnd.nextInt(mine.size());
+                        int[] seat = mine.get(i);
+                        mine.set(i, mine.get(mine.size() - 1));
+                        mine.remove(mine.size() - 1);
+                        long started = System.nanoTime();
+                        try {
+                            cancel.done(started, theater.cancelReservation(seat[0], seat[1]));
+                        } catch (RuntimeException e) {
+                            cancel.failed(started, e);
+                        }
+                    } else {
+                        int key = hot[(int) (hot.length * Math.pow(rnd.nextDouble(), 1 + skew))];
+                        int n = 1 + rnd.nextInt(party);
+                        int r = key / cols, c = Math.max(0, Math.min(key % cols - n / 2, cols - n));
+                        List<int[]> seats = new ArrayList<>(n);
+                        for (int i = 0; i < n; i++) seats.add(new int[]{r + 1, c + i + 1});
+                        long started = System.nanoTime();
+                        try {
+                            boolean booked = theater.reserveSeats(seats, name);
+                            book.done(started, booked);
+                            if (booked) mine.addAll(seats);
+                        } catch (RuntimeException e) {
+                            book.failed(started, e);
+                        }
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        if (watch != null) watch.stop();
+        LoadStats.report(System.out, elapsed, List.of(book, cancel));
+        finish(theater);
+    }
+
+    private void replay(Path file) throws IOException, InterruptedException {
+        BookingLog history = Theater.readHistory(file);
+        if (history.isEmpty()) throw new IllegalArgumentException("no history in " + file);
+        int maxRow = 1, maxSeat = 1;
+        for (int i = 0; i < history.size(); i++) {
+            maxRow = Math.max(maxRow, history.row(i));
+            maxSeat = Math.max(maxSeat, history.seat(i));
+        }
+        int rows = intOption("rows", maxRow), cols = intOption("cols", maxSeat), clients = intOption("clients", 64);
+        double speed = number("speed", 1), maxGap = number("max-gap", Double.MAX_VALUE);
+        List<Event> events = events(history, speed, maxGap, rows, cols);
+        Theater theater = open(rows, cols);
+        System.out.printf("Replay: %d events (%d history records) on a %dx%d venue, %d clients, %s%n", events.size(),
+                history.size(), rows, cols, clients,
+                speed > 0 ? String.format("%.1fx speed, %.1f s", speed, events.get(events.size() - 1).offset / 1e9)
+                          : "as fast as possible");
+
+        List<BlockingQueue<Event>> queues = new ArrayList<>(clients);
+        ExecutorService pool = LoadStats.clients();
+        for (int k = 0; k < clients; k++) {
+            BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+            queues.add(queue);
+            pool.execute(() -> {
+                try {
+                    for (Event e; (e = queue.take()) != Event.END; ) {
+                        for (Event before : e.after) before.finished.await();
+                        long started = speed > 0 ? e.due : System.nanoTime();
+                        LoadStats stats = e.cancel ? cancel : book;
+                        try {
+                            stats.done(started, e.cancel ? theater.cancelReservation(e.rows[0], e.seats[0])
+                                                         : theater.reserveSeats(e.positions(), e.name));
+                        } catch (RuntimeException ex) {
+                            stats.failed(started, ex);
+                        }
+                        e.finished.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        Watch watch = watch(theater);
+        long begin = System.nanoTime();
+        int next = 0;
+        for (Event e : events) {
+            if (speed > 0) {
+                e.due = begin + e.offset;
+                for (long wait; (wait = e.due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+            }
+            queues.get(next).add(e);
+            next = next + 1 == clients ? 0 : next + 1;
+        }
+        for (BlockingQueue<Event> queue : queues) queue.add(Event.END);
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        if (watch != null) watch.stop();
+        LoadStats.report(System.out, elapsed, List.of(book, cancel));
+        finish(theater);
+    }
+
+    private void check() throws IOException, InterruptedException {
+        int rows = intOption("rows", 50), cols = intOption("cols", 40), attempts = intOption("attempts", 10_000);
+        int party = Math.min(intOption("party", 4), cols);
+        double skew = number("skew", 1);
+        Theater theater = open(rows, cols);
+        if (theater.availableCount() != rows * cols) throw new IllegalArgumentException("check needs an empty venue");
+        int[] hot = seatsByDesirability(rows, cols);
+        System.out.printf("Check: %d bookings at once on a %dx%d venue, skew %.2f, parties up to %d%n",
+                attempts, rows, cols, skew, party);
+
+        // every request is drawn up front, so the clients only wait for the start and book
+        Random rnd = new Random(42);
+        List<List<int[]>> requests = new ArrayList<>(attempts);
+        for (int k = 0; k < attempts; k++) {
+            int key = hot[(int) (hot.length * Math.pow(rnd.nextDouble(), 1 + skew))];
+            int n = 1 + rnd.nextInt(party);
+            int r = key / cols, c = Math.max(0, Math.min(key % cols - n / 2, cols - n));
+            // one in four parties of two or more splits across this row and the next
+            int split = n > 1 && r + 1 < rows && rnd.nextInt(4) == 0 ? n / 2 : n;
+            List<int[]> seats = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) seats.add(new int[]{(i < split ? r : r + 1) + 1, c + (i < split ? i : i - split) + 1});
+            requests.add(seats);
+        }
+
+        AtomicIntegerArray owner = new AtomicIntegerArray(rows * cols);  // attempt + 1 per seat, 0 if free
+        AtomicLong doubleSold = new AtomicLong();
+        boolean[] booked = new boolean[attempts];
+        CountDownLatch ready = new CountDownLatch(attempts), start = new CountDownLatch(1);
+        ExecutorService pool = LoadStats.clients();
+        for (int k = 0; k < attempts; k++) {
+            int attempt = k;
+            pool.execute(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long started = System.nanoTime();
+                try {
+                    booked[attempt] = theater.reserveSeats(requests.get(attempt), checkName(attempt));
+                    book.done(started, booked[attempt]);
+                } catch (RuntimeException e) {
+                    book.failed(started, e);
+                }
+                if (!booked[attempt]) return;
+                for (int[] seat : requests.get(attempt)) {
+                    if (!owner.compareAndSet((seat[0] - 1) * cols + seat[1] - 1, 0, attempt + 1)) doubleSold.incrementAndGet();
+                }
+            });
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        LoadStats.report(System.out, seconds, List.of(book));
+
+        // pool.awaitTermination orders every client's writes before the reads below
+        long bookings = 0, seatsSold = 0;
+        for (int k = 0; k < attempts; k++) {
+            if (!booked[k]) continue;
+            bookings++;
+            seatsSold += requests.get(k).size();
+        }
+        long occupied = theater.occupied(Category.VIP) + theater.occupied(Category.REGULAR) + theater.occupied(Category.ECONOMY);
+        long wrongOccupant = 0, wrongHistory = 0;
+        Theater.Snapshot snap = theater.snapshot();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int o = owner.get(r * cols + c);
+                boolean taken = (snap.bits[r][c >>> 6] & (1L << c)) != 0;
+                Occupant occupant = snap.occupants[r] == null ? null : snap.occupants[r][c];
+                if (taken != (o != 0) || o != 0 && (occupant == null || !occupant.customerName.equals(checkName(o - 1)))) {
+                    wrongOccupant++;
+                }
+            }
+        }
+        for (int k = 0; k < attempts; k++) {
+            List<BookingRecord> records = theater.searchByName(checkName(k));
+            if (!booked[k]) {
+                if (!records.isEmpty()) wrongHistory++;
+                continue;
+            }
+            boolean agrees = records.size() == requests.get(k).size();
+            for (BookingRecord br : records) {
+                agrees &= !br.cancellation && owner.get((br.row - 1) * cols + br.seatNumber - 1) == k + 1;
+            }
+            if (!agrees) wrongHistory++;
+        }
+        if (snap.historySize != seatsSold) wrongHistory++;
+        mismatches = doubleSold.get() + wrongOccupant + wrongHistory + (occupied != seatsSold ? 1 : 0);
+
+        System.out.printf("%d of %d bookings succeeded for %d seats, %d seats occupied: %.0f bookings/s (%.0f attempts/s)%n",
+                bookings, attempts, seatsSold, occupied, bookings / seconds, attempts / seconds);
+        System.out.printf("Seats sold twice: %d, seats disagreeing with their booking: %d, customers with wrong history: %d%n",
+                doubleSold.get(), wrongOccupant, wrongHistory);
+        System.out.println(mismatches == 0 ? "Check passed" : "Check FAILED");
+        finish(theater);
+    }
+
+    private static String checkName(int attempt) {
+        return "check-" + attempt;
+    }
+
+    // History as calls: consecutive bookings by one customer in the same second are one
+    // booking, as reserveSeats logged them. History keeps whole seconds, so the calls within
+    // one second are spread evenly across it rather than all fired at its start.
+    private static List<Event> events(BookingLog history, double speed, double maxGap, int venueRows, int cols) {
+        List<Event> events = new ArrayList<>();
+        Event[] lastOnSeat = new Event[venueRows * cols];
+        List<Double> seconds = new ArrayList<>();  // per event, the second it falls in, from the start
+        long latest = BookingLog.NO_TIME;
+        double elapsed = 0;
+        int n = history.size();
+        for (int i = 0; i < n; ) {
+            int end = i + 1;
+            if (!history.isCancellation(i) && history.epochSecond(i) != BookingLog.NO_TIME) {
+                while (end < n && !history.isCancellation(end) && history.customerId(end) == history.customerId(i)
+                        && history.epochSecond(end) == history.epochSecond(i) && !repeats(history, i, end)) end++;
+            }
+            int[] rows = new int[end - i], seats = new int[end - i];
+            for (int j = i; j < end; j++) {
+                rows[j - i] = history.row(j);
+                seats[j - i] = history.seat(j);
+            }
+            Event e = new Event(rows, seats, history.name(history.customerId(i)), history.isCancellation(i));
+            List<Event> after = new ArrayList<>(1);
+            for (int j = 0; j < rows.length; j++) {
+                if (rows[j] < 1 || rows[j] > venueRows || seats[j] < 1 || seats[j] > cols) continue;
+                int key = (rows[j] - 1) * cols + seats[j] - 1;
+                if (lastOnSeat[key] != null && !after.contains(lastOnSeat[key])) after.add(lastOnSeat[key]);
+                lastOnSeat[key] = e;
+            }
+            e.after = after.toArray(new Event[0]);
+            // stamps are taken before the history lock, so one can trail the one before it
+            long t = history.epochSecond(i);
+            if (t != BookingLog.NO_TIME && (latest == BookingLog.NO_TIME || t > latest)) {
+                if (latest != BookingLog.NO_TIME) elapsed += Math.min(t - latest, maxGap);
+                latest = t;
+            }
+            events.add(e);
+            seconds.add(elapsed);
+            i = end;
+        }
+        if (speed == 0) return events;
+        for (int from = 0; from < events.size(); ) {
+            int to = from + 1;
+            while (to < events.size() && seconds.get(to).equals(seconds.get(from))) to++;
+            for (int j = from; j < to; j++) {
+                events.get(j).offset = (long) ((seconds.get(from) + (double) (j - from) / (to - from)) / speed * 1e9);
+            }
+            from = to;
+        }
+        return events;
+    }
+
+    // Whether record end names a seat already in the booking [from, end)
+    private static boolean repeats(BookingLog history, int from, int end) {
+        for (int j = from; j < end; j++) {
+            if (history.row(j) == history.row(end) && history.seat(j) == history.seat(end)) return true;
+        }
+        return false;
+    }
+
+    // Seat keys (row * cols + col, 0-based), front rows first and centre seats first within a row
+    private static int[] seatsByDesirability(int rows, int cols) {
+        Integer[] keys = new Integer[rows * cols];
+        for (int i = 0; i < keys.length; i++) keys[i] = i;
+        double centre = (cols - 1) / 2.0;
+        Arrays.sort(keys, Comparator.<Integer>comparingInt(k -> k / cols)
+                .thenComparingDouble(k -> Math.abs(k % cols - centre)));
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) order[i] = keys[i];
+        return order;
+    }
+
+    private Watch watch(Theater theater) {
+        return options.containsKey("watch") ? new Watch(theater, Math.max(1, (long) (number("watch", 0) * 1e6))) : null;
+    }
+
+    private Theater open(int rows, int cols) throws IOException {
+        Theater theater = new Theater(rows, cols, prices);
+        String dir = options.get("dir");
+        if (dir != null) {
+            Path d = Paths.get(dir);
+            Files.createDirectories(d);
+            int replayed = theater.recover(d.resolve("seats.csv").toString(), d.resolve("history.bin").toString(),
+                    d.resolve("bookings.journal").toString());
+            System.out.println("Journaling to " + d + (replayed > 0 ? " (recovered " + replayed + " records)" : ""));
+        }
+        return theater;
+    }
+
+    private void finish(Theater theater) throws IOException {
+        System.out.printf("%d of %d seats booked at the end%n", theater.occupied(Category.VIP)
+                + theater.occupied(Category.REGULAR) + theater.occupied(Category.ECONOMY),
+                theater.capacity(Category.VIP) + theater.capacity(Category.REGULAR) + theater.capacity(Category.ECONOMY));
+        if (options.containsKey("dir")) {
+            long started = System.nanoTime();
+            theater.close();
+            System.out.printf("Final snapshot written in %.1f ms%n", (System.nanoTime() - started) / 1e6);
+        }
+    }
+
+    private int intOption(String key, int fallback) {
+        String value = options.get(key);
+        if (value == null) return fallback;
+        try {
+            int n = Integer.parseInt(value);
+            if (n < 1) throw new IllegalArgumentException("--" + key + " must be at least 1");
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + key + " must be a whole number");
+        }
+    }
+
+    private double number(String key, double fallback) {
+        String value = options.get(key);
+        if (value == null) return fallback;
+        try {
+            double x = Double.parseDouble(value);
+            if (!(x >= 0)) throw new IllegalArgumentException("--" + key + " must not be negative");
+            return x;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + key + " must be a number");
+        }
+    }
+}
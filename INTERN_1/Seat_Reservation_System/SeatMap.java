@@ -0,0 +1,166 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// The seating map kept as one pre-rendered block of text. Every seat is a single byte at a
+// fixed offset in the frame, so a booking, cancellation or hold only marks its seat dirty (one
+// bit, no lock), and the next draw rewrites just the dirty seats before handing the whole
+// frame to the stream in one write. A Viewer sends a remote terminal the full frame once and
+// after that only the seats that changed, as cursor moves.
+class SeatMap {
+    // What a seat shows as: V, R or E when free, X when booked, H when held
+    interface Cells {
+        byte cell(int r, int c);
+    }
+
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final int CELL_WIDTH = 5;
+    private static final int FIRST_ROW_LINE = 5;  // blank line, title, seat numbers, rule
+    private static final byte[] CLEAR = "\033[H\033[2J".getBytes(CHARSET);
+
+    private final int rows, cols, words;
+    private final Cells cells;
+    private final byte[] frame;
+    private final int[] rowStart;   // offset of each row's first seat in the frame
+    private final int[] rowColumn;  // 1-based screen column of that seat
+    private final int lines;
+    private final AtomicLongArray dirty;  // seats changed since the last refresh, a bit each
+    private final long[] rowVersion;      // refresh at which each row last changed; guarded by this
+    private long version;                 // guarded by this
+
+    SeatMap(String title, Category[] rowCategory, int cols, Map<Category, Double> prices, Cells cells) {
+        this.rows = rowCategory.length;
+        this.cols = cols;
+        this.words = (cols + 63) >>> 6;
+        this.cells = cells;
+        this.rowStart = new int[rows];
+        this.rowColumn = new int[rows];
+        this.dirty = new AtomicLongArray(rows * words);
+        this.rowVersion = new long[rows];
+
+        // Same layout the map has always been printed in
+        ByteArrayOutputStream b = new ByteArrayOutputStream(rows * (cols * CELL_WIDTH + 24) + 256);
+        put(b, "\n" + title + "\n     ");
+        StringBuilder numbers = new StringBuilder();
+        for (int c = 0; c < cols; c++) numbers.append(String.format(" %2d  ", c + 1));
+        put(b, numbers + "\n    " + "-----".repeat(cols) + "\n");
+        for (int r = 0; r < rows; r++) {
+            int lineStart = b.size();
+            put(b, String.format("R%2d |", r + 1));
+            rowStart[r] = b.size() + 1;
+            rowColumn[r] = rowStart[r] - lineStart + 1;
+            for (int c = 0; c < cols; c++) {
+                b.write(' ');
+                b.write(cells.cell(r, c));
+                put(b, "   ");
+            }
+            put(b, "  (" + rowCategory[r] + ")\n");
+        }
+        put(b, "Legend: V=VIP, R=Regular, E=Economy, X=Reserved, H=Held\n");
+        put(b, "Prices: VIP=" + prices.get(Category.VIP) +
+               ", REGULAR=" + prices.get(Category.REGULAR) +
+               ", ECONOMY=" + prices.get(Category.ECONOMY) + "\n");
+        frame = b.toByteArray();
+        lines = FIRST_ROW_LINE - 1 + rows + 2;
+    }
+
+    // Notes that the seat's state changed; safe from any thread, and costs nothing more if
+    // the seat is already waiting to be redrawn
+    void mark(int r, int c) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        long w;
+        do {
+            w = dirty.get(i);
+            if ((w & bit) != 0) return;
+        } while (!dirty.compareAndSet(i, w, w | bit));
+    }
+
+    // Writes the whole map, up to date, in one write
+    void writeTo(OutputStream out) throws IOException {
+        synchronized (this) {
+            refresh();
+            out.write(frame);
+        }
+        out.flush();
+    }
+
+    Viewer viewer(OutputStream out) {
+        return new Viewer(out);
+    }
+
+    // A remote display: the first update clears the screen and draws the full map, later
+    // ones move the cursor to each seat that changed since and redraw only that seat
+    final class Viewer {
+        private final OutputStream out;
+        private final byte[] shown = new byte[rows * cols];
+        private long seen = -1;
+
+        private Viewer(OutputStream out) {
+            this.out = out;
+        }
+
+        // Sends what changed; returns the number of seats redrawn
+        synchronized int update() throws IOException {
+            ByteArrayOutputStream b = new ByteArrayOutputStream();
+            ListingWriter w = new ListingWriter(b, 4096);
+            int changed = 0;
+            synchronized (SeatMap.this) {
+                refresh();
+                if (seen < 0) {
+                    b.write(CLEAR);
+                    b.write(frame);
+                    for (int r = 0; r < rows; r++)
+                        for (int c = 0; c < cols; c++) shown[r * cols + c] = frame[rowStart[r] + c * CELL_WIDTH];
+                    changed = rows * cols;
+                } else if (version > seen) {
+                    for (int r = 0; r < rows; r++) {
+                        if (rowVersion[r] <= seen) continue;
+                        for (int c = 0; c < cols; c++) {
+                            byte now = frame[rowStart[r] + c * CELL_WIDTH];
+                            if (shown[r * cols + c] == now) continue;
+                            shown[r * cols + c] = now;
+                            w.ch('\033').ch('[').number(FIRST_ROW_LINE + r).ch(';')
+                             .number(rowColumn[r] + c * CELL_WIDTH).ch('H').ch((char) now);
+                            changed++;
+                        }
+                    }
+                    // leave the cursor where a full draw would have
+                    if (changed > 0) w.ch('\033').ch('[').number(lines + 1).text(";1H");
+                }
+                seen = version;
+            }
+            w.flush();
+            if (b.size() > 0) {
+                b.writeTo(out);
+                out.flush();
+            }
+            return changed;
+        }
+    }
+
+    // Redraws the dirty seats; caller holds this
+    private void refresh() {
+        long next = version + 1;
+        boolean changed = false;
+        for (int i = 0; i < dirty.length(); i++) {
+            if (dirty.get(i) == 0) continue;
+            int r = i / words, base = (i % words) << 6;
+            for (long bits = dirty.getAndSet(i, 0); bits != 0; bits &= bits - 1) {
+                int c = base + Long.numberOfTrailingZeros(bits);
+                int at = rowStart[r] + c * CELL_WIDTH;
+                byte now = cells.cell(r, c);
+                if (frame[at] == now) continue;
+                frame[at] = now;
+                rowVersion[r] = next;
+                changed = true;
+            }
+        }
+        if (changed) version = next;
+    }
+
+    private static void put(ByteArrayOutputStream b, String s) {
+        b.writeBytes(s.getBytes(CHARSET));
+    }
+}
@@ -0,0 +1,344 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Every show on every screen, each an independent Theater with its own seats.csv,
+// history.bin and bookings.journal in its own directory. The catalog of shows lives in one
+// CSV file:
+//   showId,screen,startsAt,endsAt,rows,cols,vipPrice,regularPrice,economyPrice,directory
+// (startsAt/endsAt as yyyy-MM-dd HH:mm, empty for a show that never ends).
+// Each show belongs to one of a fixed set of shards, each a single thread that alone loads,
+// changes and evicts its shows' theaters. Work on different shows runs on different threads
+// without sharing a lock, and work on one show is applied in arrival order. A theater is
+// loaded on the first call that needs it, and a sweep every minute closes (checkpointing its
+// files) and drops any loaded show that has ended. Journal fsyncs are waited for on the
+// caller's thread, so a shard is not held up by the disk.
+class ShowRegistry implements Closeable {
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final long SWEEP_SECONDS = 60;
+
+    static final class Show {
+        final String id;
+        final String screen;
+        final LocalDateTime startsAt;  // null: always on
+        final LocalDateTime endsAt;    // null: never ends
+        final int rows, cols;
+        final Map<Category, Double> prices;
+        final String directory;
+
+        Show(String id, String screen, LocalDateTime startsAt, LocalDateTime endsAt, int rows, int cols,
+             Map<Category, Double> prices, String directory) {
+            if (!id.matches("[A-Za-z0-9_-]+")) throw new IllegalArgumentException("Show ID may only use letters, digits, '-' and '_'");
+            if (screen.contains(",") || screen.contains("\n")) throw new IllegalArgumentException("Screen name may not contain commas");
+            if (rows < 1 || cols < 1) throw new IllegalArgumentException("A show needs at least one row and one seat per row");
+            if (startsAt != null && endsAt != null && endsAt.isBefore(startsAt)) throw new IllegalArgumentException("Show ends before it starts");
+            this.id = id;
+            this.screen = screen;
+            this.startsAt = startsAt;
+            this.endsAt = endsAt;
+            this.rows = rows;
+            this.cols = cols;
+            this.prices = prices;
+            this.directory = directory;
+        }
+
+        boolean hasEnded(LocalDateTime now) {
+            return endsAt != null && now.isAfter(endsAt);
+        }
+
+        private String file(String name) {
+            return Paths.get(directory, name).toString();
+        }
+    }
+
+    // Work to run against one show's theater on its shard
+    interface Task<T> {
+        T run(Theater theater) throws IOException;
+    }
+
+    interface Action {
+        void run(Theater theater) throws IOException;
+    }
+
+    // A task's result, with what the caller must wait for before handing it back
+    private static final class Done<T> {
+        final T value;
+        final Theater theater;
+        final long seq;
+
+        Done(T value, Theater theater, long seq) {
+            this.value = value;
+            this.theater = theater;
+            this.seq = seq;
+        }
+    }
+
+    private final class Shard {
+        final ExecutorService executor;
+        final Map<String, Theater> loaded = new HashMap<>();  // only touched on the shard's thread
+
+        Shard(int number) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "show-shard-" + number);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        <T> Done<T> run(Show show, Task<T> task) throws IOException {
+            Theater theater = loaded.get(show.id);
+            if (theater == null) {
+                theater = load(show, executor);
+                loaded.put(show.id, theater);
+            }
+            try {
+                T value = task.run(theater);
+                return new Done<>(value, theater, theater.takeUnsynced());
+            } finally {
+                if (theater.journalFailed()) discard(show.id, theater);
+            }
+        }
+
+        // Drops a show whose journal has failed without saving it: its memory may hold changes
+        // the disk does not, and the next call loads it again from the files
+        void discard(String showId, Theater theater) {
+            loaded.remove(showId, theater);
+            try {
+                theater.discard();
+            } catch (IOException e) {
+                // nothing more is written to it either way
+            }
+        }
+
+        void evictEnded(LocalDateTime now) {
+            for (Iterator<Map.Entry<String, Theater>> it = loaded.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Theater> e = it.next();
+                Show show = catalog.get(e.getKey());
+                if (show != null && !show.hasEnded(now)) continue;
+                closeQuietly(e.getKey(), e.getValue());
+                it.remove();
+            }
+        }
+
+        void closeAll() {
+            loaded.forEach(ShowRegistry::closeQuietly);
+            loaded.clear();
+        }
+    }
+
+    private final Path catalogFile;
+    private final Map<String, Show> catalog = new ConcurrentHashMap<>();
+    private final Shard[] shards;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "show-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Reads the catalog (if the file exists) and starts one shard per processor
+    ShowRegistry(String catalogFile) throws IOException {
+        this(catalogFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    ShowRegistry(String catalogFile, int shardCount) throws IOException {
+        this.catalogFile = Paths.get(catalogFile);
+        if (Files.exists(this.catalogFile)) loadCatalog();
+        shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard(i);
+        sweeper.scheduleAtFixedRate(this::evictEnded, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Adds a show to the catalog and rewrites the catalog file
+    synchronized void addShow(Show show) throws IOException {
+        if (catalog.putIfAbsent(show.id, show) != null) throw new IllegalArgumentException("Show " + show.id + " already exists");
+        try {
+            saveCatalog();
+        } catch (IOException e) {
+            catalog.remove(show.id);
+            throw e;
+        }
+    }
+
+    Show show(String id) {
+        return catalog.get(id);
+    }
+
+    boolean isEmpty() {
+        return catalog.isEmpty();
+    }
+
+    // Shows that have not ended by now, earliest first
+    List<Show> currentShows(LocalDateTime now) {
+        List<Show> result = new ArrayList<>();
+        for (Show s : catalog.values()) if (!s.hasEnded(now)) result.add(s);
+        result.sort(Comparator.comparing((Show s) -> s.startsAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                              .thenComparing(s -> s.id));
+        return result;
+    }
+
+    // Runs task on the show's shard, loading the show first if it is not in memory, and
+    // returns once any booking or cancellation it made is on disk
+    <T> T call(String showId, Task<T> task) throws IOException {
+        Show show = catalog.get(showId);
+        if (show == null) throw new IllegalArgumentException("Unknown show " + showId);
+        Shard shard = shards[Math.floorMod(showId.hashCode(), shards.length)];
+        Future<Done<T>> future;
+        try {
+            future = shard.executor.submit(() -> shard.run(show, task));
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Show registry is closed");
+        }
+        Done<T> done = await(future);
+        try {
+            Metrics.time(Theater.AWAIT_DURABLE, () -> done.theater.awaitDurable(done.seq));
+        } catch (UncheckedIOException e) {
+            try {
+                shard.executor.execute(() -> shard.discard(showId, done.theater));
+            } catch (RejectedExecutionException closing) {
+                // shutting down; closing it fails at the journal before any snapshot is written
+            }
+            throw e;
+        }
+        return done.value;
+    }
+
+    void run(String showId, Action action) throws IOException {
+        call(showId, theater -> {
+            action.run(theater);
+            return null;
+        });
+    }
+
+    // As call, recording in timer how long the task ran on the shard
+    <T> T call(String showId, Metrics.Timer timer, Task<T> task) throws IOException {
+        return call(showId, theater -> Metrics.time(timer, () -> task.run(theater)));
+    }
+
+    void run(String showId, Metrics.Timer timer, Action action) throws IOException {
+        run(showId, theater -> Metrics.time(timer, () -> action.run(theater)));
+    }
+
+    // Closes and drops every loaded show that has ended
+    void evictEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Shard shard : shards) {
+            try {
+                shard.executor.execute(() -> shard.evictEnded(now));
+            } catch (RejectedExecutionException e) {
+                return;  // closing
+            }
+        }
+    }
+
+    // Checkpoints and closes every loaded show, then stops the shards
+    @Override
+    public void close() throws IOException {
+        sweeper.shutdownNow();
+        for (Shard shard : shards) {
+            shard.executor.execute(shard::closeAll);
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted closing shows");
+            }
+        }
+    }
+
+    private static Theater load(Show show, Executor shard) throws IOException {
+        Files.createDirectories(Paths.get(show.directory));
+        Theater theater = new Theater(show.rows, show.cols, show.prices);
+        theater.deferSync();
+        theater.expireHoldsOn(shard);
+        int replayed = Metrics.time(Theater.RECOVER,
+                () -> theater.recover(show.file("seats.csv"), show.file("history.bin"), show.file("bookings.journal")));
+        if (replayed > 0) System.out.println("Recovered " + replayed + " unsaved change(s) for show " + show.id + " from journal.");
+        return theater;
+    }
+
+    private static void closeQuietly(String showId, Theater theater) {
+        try {
+            Metrics.time(Theater.CLOSE, theater::close);
+        } catch (IOException e) {
+            // its journal is still on disk and is replayed when the show is next loaded
+            System.out.println("Error saving show " + showId + ": " + e.getMessage());
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for show");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException(cause);
+        }
+    }
+
+    private void loadCatalog() throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(catalogFile)) {
+            br.readLine(); // skip header
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",", 10);
+                if (parts.length < 10) continue;
+                try {
+                    Map<Category, Double> prices = new EnumMap<>(Category.class);
+                    prices.put(Category.VIP, Double.parseDouble(parts[6]));
+                    prices.put(Category.REGULAR, Double.parseDouble(parts[7]));
+                    prices.put(Category.ECONOMY, Double.parseDouble(parts[8]));
+                    Show show = new Show(parts[0], parts[1], parseTime(parts[2]), parseTime(parts[3]),
+                            Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), prices, parts[9]);
+                    catalog.put(show.id, show);
+                } catch (RuntimeException e) {
+                    System.out.println("Skipping bad show entry: " + line);
+                }
+            }
+        }
+    }
+
+    // Written to a temporary file, fsynced and moved into place, like the theaters' own files.
+    // A catalog lost in a crash would come back with only the default show, and the next save
+    // would make that permanent.
+    private void saveCatalog() throws IOException {
+        List<Show> all = new ArrayList<>(catalog.values());
+        all.sort(Comparator.comparing(s -> s.id));
+        Path tmp = Paths.get(catalogFile + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ListingWriter out = new ListingWriter(Channels.newOutputStream(ch));
+            out.text("showId,screen,startsAt,endsAt,rows,cols,vipPrice,regularPrice,economyPrice,directory").newline();
+            for (Show s : all) {
+                out.text(s.id).ch(',').text(s.screen).ch(',').text(formatTime(s.startsAt)).ch(',')
+                   .text(formatTime(s.endsAt)).ch(',').number(s.rows).ch(',').number(s.cols).ch(',')
+                   .decimal2(s.prices.get(Category.VIP)).ch(',').decimal2(s.prices.get(Category.REGULAR)).ch(',')
+                   .decimal2(s.prices.get(Category.ECONOMY)).ch(',').text(s.directory).newline();
+            }
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        GroupCommitLog.syncDirectory(catalogFile);
+    }
+
+    static LocalDateTime parseTime(String s) {
+        return s.isEmpty() ? null : LocalDateTime.parse(s, DTF);
+    }
+
+    private static String formatTime(LocalDateTime t) {
+        return t == null ? "" : t.format(DTF);
+    }
+}
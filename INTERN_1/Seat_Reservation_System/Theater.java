@@ -0,0 +1,1044 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Theater class handling seat management and bookings.
+// Seat state is one bit per seat in per-row long bitsets, and only reserved seats carry an
+// Occupant, so an empty stadium costs a few bytes per seat. Free-seat counters per row and
+// per category are kept in step with every change, so availability never scans the grid.
+// Seats are guarded by one lock per row; a booking locks the rows it touches in ascending
+// order, so overlapping multi-row bookings cannot deadlock and either all of their seats
+// are taken or none are.
+// A held seat is taken like a booked one (its reserved bit is set and the free counters
+// exclude it) and also has its held bit set; it is not in history or the journal until the
+// hold is confirmed, so a restart simply frees it. Holds expire on one shared timer wheel.
+class Theater {
+    private static final int MAX_ALLOCATION_ATTEMPTS = 32;
+
+    private static final class HoldTimer {
+        static final TimerWheel WHEEL = new TimerWheel("seat-hold-timer", 100, TimeUnit.MILLISECONDS, 1024);
+    }
+
+    // Seats set aside for one customer until the hold is confirmed, released or runs out
+    private static final class Hold {
+        final String customerName;
+        final int[] keys;  // sorted seat keys, as for reserveSeats
+        volatile TimerWheel.Timeout expiry;
+        boolean open = true;  // guarded by the rows' locks
+
+        Hold(String customerName, int[] keys) {
+            this.customerName = customerName;
+            this.keys = keys;
+        }
+    }
+
+    // Latency of each operation, over every theater in the process; see Metrics. Callers time
+    // the operations where they invoke them (the menu through ShowRegistry, ShowRegistry and
+    // SeatJournal). Per-booking operations time one call in SAMPLE_EVERY to keep the clock
+    // reads off the hot path: sampled, a timer adds about 8 ns to a call on the shard, timing
+    // every call about 115 ns, against about 5 us for the ShowRegistry hand-off around it.
+    // Calls made on a Theater directly are not timed: SeatLoad reports its own LoadStats and
+    // the benchmarks measure the bare operations.
+    static final int SAMPLE_EVERY = 32;
+    static final Metrics.Timer DISPLAY_SEATING = Metrics.timer("displaySeating");
+    static final Metrics.Timer DISPLAY_SEATING_AS_OF = Metrics.timer("displaySeatingAsOf");
+    static final Metrics.Timer RESERVE_SEATS = Metrics.timer("reserveSeats", SAMPLE_EVERY);
+    static final Metrics.Timer HOLD_SEATS = Metrics.timer("holdSeats", SAMPLE_EVERY);
+    static final Metrics.Timer CONFIRM_HOLD = Metrics.timer("confirmHold", SAMPLE_EVERY);
+    static final Metrics.Timer RELEASE_HOLD = Metrics.timer("releaseHold", SAMPLE_EVERY);
+    static final Metrics.Timer CANCEL_RESERVATION = Metrics.timer("cancelReservation", SAMPLE_EVERY);
+    static final Metrics.Timer AWAIT_DURABLE = Metrics.timer("awaitDurable", SAMPLE_EVERY);
+    static final Metrics.Timer RESERVE_BEST_AVAILABLE = Metrics.timer("reserveBestAvailable", SAMPLE_EVERY);
+    static final Metrics.Timer SHOW_RESERVATION_DETAILS = Metrics.timer("showReservationDetails");
+    static final Metrics.Timer SEARCH_BY_NAME = Metrics.timer("searchByName", SAMPLE_EVERY);
+    static final Metrics.Timer CUSTOMER_SUMMARY = Metrics.timer("customerSummary", SAMPLE_EVERY);
+    static final Metrics.Timer CUSTOMERS_BY_PREFIX = Metrics.timer("customersByPrefix", SAMPLE_EVERY);
+    static final Metrics.Timer CALCULATE_TOTAL_PRICE = Metrics.timer("calculateTotalPrice", SAMPLE_EVERY);
+    static final Metrics.Timer SNAPSHOT = Metrics.timer("snapshot");
+    static final Metrics.Timer WRITE_SNAPSHOT = Metrics.timer("writeSnapshot");
+    static final Metrics.Timer RECOVER = Metrics.timer("recover");
+    static final Metrics.Timer CLOSE = Metrics.timer("close");
+    static final Metrics.Timer LOAD_FROM_FILES = Metrics.timer("loadFromFiles");
+    static final Metrics.Timer EVENTS_BETWEEN = Metrics.timer("eventsBetween");
+    static final Metrics.Timer SALES_BETWEEN = Metrics.timer("salesBetween");
+    static final Metrics.Timer PRINT_HISTORY = Metrics.timer("printHistory");
+    private static final Metrics.Counter SEATS_BOOKED = Metrics.counter("seatsBooked");
+    private static final Metrics.Counter SEATS_CANCELLED = Metrics.counter("seatsCancelled");
+    private static final Metrics.Counter HOLDS_EXPIRED = Metrics.counter("holdsExpired");
+
+    private final int rows, cols;
+    private final Map<Category, Double> priceMap;
+    private final Category[] rowCategory;
+    private final long[][] reserved;
+    private final long[][] held;  // subset of reserved
+    private final SeatMap seatMap;
+    private final IntHashMap<Occupant>[] occupants;  // per row, keyed by 0-based column
+    private final AtomicIntegerArray rowFree;
+    private final AtomicIntegerArray categoryFree;
+    private final AtomicInteger free;
+    private final AtomicInteger heldSeats = new AtomicInteger();
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final AtomicLong nextHoldId = new AtomicLong();
+    private volatile Executor expiryExecutor = Runnable::run;
+    private final FreeRunIndex freeRuns;
+    private final int[] firstRow = new int[Category.values().length];  // 0-based row band per category
+    private final int[] lastRow = new int[Category.values().length];
+    private final BookingLog history;
+    private final ReentrantLock[] rowLocks;
+    private final CustomerIndex customers = new CustomerIndex();
+    private final SalesTally sales = new SalesTally();
+    private final ReentrantLock historyOrder = new ReentrantLock();
+    private SeatJournal journal;  // null until recover() opens one
+    private boolean deferSync;
+    private long unsyncedSeq;     // highest journal record not yet waited for, with sync deferred
+    private DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    Theater(int rows, int cols, Map<Category, Double> priceMap) {
+        this.rows = rows;
+        this.cols = cols;
+        this.priceMap = priceMap;
+        this.history = new BookingLog();
+        this.rowCategory = new Category[rows];
+        this.reserved = new long[rows][(cols + 63) >>> 6];
+        this.held = new long[rows][(cols + 63) >>> 6];
+        this.occupants = IntHashMap.array(rows);
+        this.rowFree = new AtomicIntegerArray(rows);
+        this.categoryFree = new AtomicIntegerArray(Category.values().length);
+        this.free = new AtomicInteger(rows * cols);
+        this.rowLocks = new ReentrantLock[rows];
+        this.freeRuns = new FreeRunIndex(rows, cols);
+        Arrays.fill(firstRow, -1);
+        Arrays.fill(lastRow, -2);
+        for (int r = 0; r < rows; r++) {
+            Category cat = (r < Math.max(1, rows/5)) ? Category.VIP :
+                           (r < Math.max(1, rows*3/5)) ? Category.REGULAR : Category.ECONOMY;
+            rowCategory[r] = cat;
+            occupants[r] = new IntHashMap<>(4);
+            rowFree.set(r, cols);
+            categoryFree.addAndGet(cat.ordinal(), cols);
+            if (firstRow[cat.ordinal()] < 0) firstRow[cat.ordinal()] = r;
+            lastRow[cat.ordinal()] = r;
+            rowLocks[r] = new ReentrantLock();
+        }
+        this.seatMap = new SeatMap("Seating Map:", rowCategory, cols, priceMap, this::cell);
+    }
+
+    // Display the seating map
+    void displaySeating() throws IOException {
+        seatMap.writeTo(System.out);
+    }
+
+    // Display the booked seats as they stood at time t
+    void displaySeatingAsOf(LocalDateTime t) throws IOException {
+        long[][] taken = seatsAsOf(t).bits;
+        new SeatMap("Seating Map as of " + t.format(dtf) + ":", rowCategory, cols, priceMap,
+                    (r, c) -> (taken[r][c >>> 6] & (1L << c)) != 0 ? (byte) 'X' : freeCell(r)).writeTo(System.out);
+    }
+
+    // Sends the seating map to a remote display, then only the seats that change
+    SeatMap.Viewer seatMapViewer(OutputStream out) {
+        return seatMap.viewer(out);
+    }
+
+    private byte cell(int r, int c) {
+        return isHeld(r, c) ? (byte) 'H' : isReserved(r, c) ? (byte) 'X' : freeCell(r);
+    }
+
+    private byte freeCell(int r) {
+        return (byte) shortDisplay(rowCategory[r]).charAt(0);
+    }
+
+    // Short representation of a free seat for display
+    private static String shortDisplay(Category category) {
+        switch (category) {
+            case VIP: return "V";
+            case REGULAR: return "R";
+            default: return "E";
+        }
+    }
+
+    // Reserve seats, all or nothing. Safe to call from many threads at once; a request naming
+    // the same seat twice is rejected like one naming a taken seat.
+    boolean reserveSeats(List<int[]> positions, String name) {
+        int[] keys = seatKeys(positions);
+        if (keys == null) return false;
+        int n = keys.length;
+
+        long seq;
+        lockRows(keys);
+        try {
+            for (int key : keys) if (isReserved(key / cols, key % cols)) return false;
+            LocalDateTime now = LocalDateTime.now();
+            BookingRecord[] records = new BookingRecord[n];
+            for (int i = 0; i < n; i++) {
+                int r = positions.get(i)[0] - 1, c = positions.get(i)[1] - 1;
+                records[i] = new BookingRecord(name, r + 1, c + 1, rowCategory[r], priceMap.get(rowCategory[r]), now);
+            }
+            // appended while the rows are still held, so history lists a seat's bookings in
+            // order, and before the seats are taken, so a refused record changes nothing
+            seq = appendBooking(records, n);
+            Occupant occupant = new Occupant(name, now);
+            for (BookingRecord br : records) take(br.row - 1, br.seatNumber - 1, occupant);
+            int last = -1;
+            for (int key : keys) {
+                if (key / cols != last) freeRuns.update(key / cols, longestFreeRun(key / cols));
+                last = key / cols;
+            }
+        } finally {
+            unlockRows(keys);
+        }
+        afterChange(seq);
+        return true;
+    }
+
+    // Sorted seat keys (row * cols + col, 0-based) of 1-based positions, or null if one is
+    // outside the theater or named twice
+    private int[] seatKeys(List<int[]> positions) {
+        int n = positions.size();
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] pos = positions.get(i);
+            if (!validPosition(pos[0], pos[1])) return null;
+            keys[i] = (pos[0]-1) * cols + (pos[1]-1);
+        }
+        Arrays.sort(keys);
+        for (int i = 1; i < n; i++) if (keys[i] == keys[i-1]) return null;
+        return keys;
+    }
+
+    // Holds seats for a customer, all or nothing, for at most ttl. The seats stop counting as
+    // available until the hold is confirmed (booked), released, or expires. Returns the hold
+    // id, or -1 if a seat is invalid, repeated or taken.
+    long holdSeats(List<int[]> positions, String name, Duration ttl) {
+        int[] keys = seatKeys(positions);
+        if (keys == null || keys.length == 0) return -1;
+        lockRows(keys);
+        try {
+            for (int key : keys) if (isReserved(key / cols, key % cols)) return -1;
+            Occupant occupant = new Occupant(name, LocalDateTime.now());
+            int last = -1;
+            for (int key : keys) {
+                int r = key / cols, c = key % cols;
+                take(r, c, occupant);
+                held[r][c >>> 6] |= 1L << c;
+                seatMap.mark(r, c);
+                if (r != last) freeRuns.update(r, longestFreeRun(r));
+                last = r;
+            }
+            heldSeats.addAndGet(keys.length);
+        } finally {
+            unlockRows(keys);
+        }
+        long id = nextHoldId.incrementAndGet();
+        Hold hold = new Hold(name, keys);
+        holds.put(id, hold);
+        hold.expiry = HoldTimer.WHEEL.schedule(() -> expire(id), ttl.toNanos(), TimeUnit.NANOSECONDS);
+        return id;
+    }
+
+    // Books the held seats at the current prices; false if the hold is no longer open
+    boolean confirmHold(long id) {
+        Hold hold = holds.get(id);
+        if (hold == null) return false;
+        long seq;
+        lockRows(hold.keys);
+        try {
+            if (!hold.open) return false;
+            LocalDateTime now = LocalDateTime.now();
+            BookingRecord[] records = new BookingRecord[hold.keys.length];
+            for (int i = 0; i < records.length; i++) {
+                int r = hold.keys[i] / cols, c = hold.keys[i] % cols;
+                records[i] = new BookingRecord(hold.customerName, r + 1, c + 1, rowCategory[r], priceMap.get(rowCategory[r]), now);
+            }
+            seq = appendBooking(records, records.length);
+            hold.open = false;
+            Occupant occupant = new Occupant(hold.customerName, now);
+            for (int key : hold.keys) {
+                int r = key / cols, c = key % cols;
+                held[r][c >>> 6] &= ~(1L << c);
+                seatMap.mark(r, c);
+                occupants[r].put(c, occupant);
+            }
+            heldSeats.addAndGet(-records.length);
+        } finally {
+            unlockRows(hold.keys);
+        }
+        closeHold(id, hold);
+        afterChange(seq);
+        return true;
+    }
+
+    // Frees the held seats; false if the hold is no longer open
+    boolean releaseHold(long id) {
+        Hold hold = holds.get(id);
+        if (hold == null) return false;
+        lockRows(hold.keys);
+        try {
+            if (!hold.open) return false;
+            hold.open = false;
+            int last = -1;
+            for (int key : hold.keys) {
+                int r = key / cols, c = key % cols;
+                held[r][c >>> 6] &= ~(1L << c);
+                release(r, c);
+                if (r != last) freeRuns.update(r, longestFreeRun(r));
+                last = r;
+            }
+            heldSeats.addAndGet(-hold.keys.length);
+        } finally {
+            unlockRows(hold.keys);
+        }
+        closeHold(id, hold);
+        return true;
+    }
+
+    // Where expired holds are released; ShowRegistry points it at the show's shard
+    void expireHoldsOn(Executor executor) {
+        expiryExecutor = executor;
+    }
+
+    private void expire(long id) {
+        try {
+            expiryExecutor.execute(() -> expireNow(id));
+        } catch (RejectedExecutionException e) {
+            expireNow(id);  // the shard has shut down; nothing else will touch the theater
+        }
+    }
+
+    // Counts only holds still open, not ones confirmed or released just before they expired
+    private void expireNow(long id) {
+        if (releaseHold(id)) HOLDS_EXPIRED.increment();
+    }
+
+    private void closeHold(long id, Hold hold) {
+        holds.remove(id);
+        TimerWheel.Timeout expiry = hold.expiry;
+        if (expiry != null) expiry.cancel();
+    }
+
+    // Cancel a reservation
+    boolean cancelReservation(int row, int col) {
+        if (!validPosition(row, col)) return false;
+        long seq = 0;
+        ReentrantLock lock = rowLocks[row-1];
+        lock.lock();
+        try {
+            if (!isBooked(row-1, col-1)) return false;
+            Occupant o = occupants[row-1].get(col-1);
+            Category cat = rowCategory[row-1];
+            String name = o == null ? "" : o.customerName;
+            // logged while the row is still held and before the seat is freed, like a booking
+            seq = appendCancel(new BookingRecord(name, row, col, cat, bookedPrice(name, row, col),
+                    LocalDateTime.now(), true));
+            release(row-1, col-1);
+            freeRuns.update(row-1, longestFreeRun(row-1));
+        } finally {
+            lock.unlock();
+        }
+        afterChange(seq);
+        return true;
+    }
+
+    // Adds a booking to the journal, if one is open, then to history, the customer index and
+    // the sales tally, under one lock, so all of them list bookings in the same order; returns
+    // the journal sequence number (0 without one). Throws, changing nothing, if the journal
+    // refuses the record.
+    private long appendBooking(BookingRecord[] records, int n) {
+        historyOrder.lock();
+        try {
+            int index = history.size();
+            long seq = journal == null ? 0 : journal.logBooking(index, records, n);
+            history.append(records, n);
+            for (int i = 0; i < n; i++) {
+                customers.add(index + i, records[i]);
+                sales.add(records[i]);
+            }
+            SEATS_BOOKED.add(n);
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            historyOrder.unlock();
+        }
+    }
+
+    // What the seat at (row, col), 1-based, was booked for: the price on its customer's latest
+    // booking of it, or the current price if history has none (seats from an old seats file)
+    private double bookedPrice(String name, int row, int col) {
+        int[] positions = customers.records(name);
+        for (int i = positions.length - 1; i >= 0; i--) {
+            BookingRecord br = history.get(positions[i]);
+            if (br.row == row && br.seatNumber == col) return br.price;
+        }
+        return priceMap.get(rowCategory[row-1]);
+    }
+
+    // Adds a cancellation to the journal, if one is open, then to history, the customer index
+    // and the sales tally, in the same order; like appendBooking it changes nothing if the
+    // journal refuses it
+    private long appendCancel(BookingRecord event) {
+        historyOrder.lock();
+        try {
+            int index = history.size();
+            long seq = journal == null ? 0 : journal.logCancel(index, event);
+            history.add(event);
+            customers.cancel(event);
+            sales.add(event);
+            SEATS_CANCELLED.increment();
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            historyOrder.unlock();
+        }
+    }
+
+    // Waits until a journaled change is on disk, so a caller told "booked" keeps the booking
+    // across a crash. Called with no row locks held, so concurrent bookings share one fsync.
+    // With sync deferred the wait is left to whoever calls takeUnsynced().
+    private void afterChange(long seq) {
+        if (journal == null) return;
+        if (deferSync) unsyncedSeq = Math.max(unsyncedSeq, seq);
+        else awaitDurable(seq);
+    }
+
+    // Waits until journal record seq is on disk and gives the journal its chance to compact
+    void awaitDurable(long seq) {
+        if (journal == null) return;
+        try {
+            journal.awaitDurable(seq);
+            journal.maybeCompact();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // For a theater changed by one thread only (ShowRegistry): changes return without waiting
+    // for the fsync, so that thread can move on to the next show's work while it happens
+    void deferSync() {
+        deferSync = true;
+    }
+
+    // The journal record to pass to awaitDurable to cover every change made since the last call
+    long takeUnsynced() {
+        long seq = unsyncedSeq;
+        unsyncedSeq = 0;
+        return seq;
+    }
+
+    // Marks a free seat reserved and updates the counters; caller holds the row lock
+    private void take(int r, int c, Occupant occupant) {
+        reserved[r][c >>> 6] |= 1L << c;
+        seatMap.mark(r, c);
+        occupants[r].put(c, occupant);
+        rowFree.decrementAndGet(r);
+        categoryFree.decrementAndGet(rowCategory[r].ordinal());
+        free.decrementAndGet();
+    }
+
+    // Frees a reserved seat and updates the counters; caller holds the row lock
+    private void release(int r, int c) {
+        reserved[r][c >>> 6] &= ~(1L << c);
+        seatMap.mark(r, c);
+        occupants[r].remove(c);
+        rowFree.incrementAndGet(r);
+        categoryFree.incrementAndGet(rowCategory[r].ordinal());
+        free.incrementAndGet();
+    }
+
+    // Booked or held
+    private boolean isReserved(int r, int c) {
+        return (reserved[r][c >>> 6] & (1L << c)) != 0;
+    }
+
+    private boolean isHeld(int r, int c) {
+        return (held[r][c >>> 6] & (1L << c)) != 0;
+    }
+
+    private boolean isBooked(int r, int c) {
+        return isReserved(r, c) && !isHeld(r, c);
+    }
+
+    // Locks the distinct rows of sorted seat keys, lowest row first
+    private void lockRows(int[] keys) {
+        int last = -1;
+        for (int key : keys) {
+            int row = key / cols;
+            if (row != last) rowLocks[row].lock();
+            last = row;
+        }
+    }
+
+    private void unlockRows(int[] keys) {
+        int last = -1;
+        for (int key : keys) {
+            int row = key / cols;
+            if (row != last) rowLocks[row].unlock();
+            last = row;
+        }
+    }
+
+    // Books n adjacent seats in one row of the category, choosing the free block whose centre
+    // is nearest the centre of that category's rows. Rows are visited outward from the middle
+    // row, the run index skips rows without n adjacent free seats, and the search stops once
+    // the row distance alone exceeds the best block found. The block is then booked with
+    // reserveSeats; if another booking took one of its seats first, the search is repeated.
+    // Returns the booked seats as {row, seat} pairs, or null if no row has room.
+    List<int[]> reserveBestAvailable(int n, Category category, String name) {
+        int lo = firstRow[category.ordinal()], hi = lastRow[category.ordinal()];
+        if (n < 1 || n > cols || lo > hi) return null;
+        for (int attempt = 0; attempt < MAX_ALLOCATION_ATTEMPTS; attempt++) {
+            int[] block = bestBlock(n, lo, hi);
+            if (block == null) return null;
+            List<int[]> positions = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) positions.add(new int[]{ block[0] + 1, block[1] + i + 1 });
+            if (reserveSeats(positions, name)) return positions;
+        }
+        return null;
+    }
+
+    // {row, first column} (0-based) of the best free block of n seats in rows [lo, hi], or null
+    private int[] bestBlock(int n, int lo, int hi) {
+        double centreRow = (lo + hi) / 2.0, centreCol = (cols - 1) / 2.0;
+        int up = lastRowWithRun(lo, (int) Math.floor(centreRow), n);
+        int down = firstRowWithRun((int) Math.floor(centreRow) + 1, hi, n);
+        int[] best = null;
+        double bestScore = Double.MAX_VALUE;
+        while (up >= 0 || down >= 0) {
+            boolean takeUp = down < 0 || (up >= 0 && centreRow - up <= down - centreRow);
+            int r = takeUp ? up : down;
+            double dr = r - centreRow;
+            if (dr * dr >= bestScore) break;
+            int start = bestStartInRow(r, n, centreCol);
+            if (start >= 0) {
+                double dc = start + (n - 1) / 2.0 - centreCol;
+                double score = dr * dr + dc * dc;
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = new int[]{ r, start };
+                }
+            }
+            if (takeUp) up = r > lo ? lastRowWithRun(lo, r - 1, n) : -1;
+            else down = r < hi ? firstRowWithRun(r + 1, hi, n) : -1;
+        }
+        return best;
+    }
+
+    private int firstRowWithRun(int from, int to, int n) {
+        return from > to ? -1 : freeRuns.firstAtLeast(from, to, n);
+    }
+
+    private int lastRowWithRun(int from, int to, int n) {
+        return from > to ? -1 : freeRuns.lastAtLeast(from, to, n);
+    }
+
+    // Start column of the n-seat free block in row r whose centre is nearest centreCol, or -1.
+    // Each free run [a, b) only needs its start clamped towards the ideal position.
+    private int bestStartInRow(int r, int n, double centreCol) {
+        int ideal = (int) Math.round(centreCol - (n - 1) / 2.0);
+        int best = -1, bestDistance = Integer.MAX_VALUE;
+        for (int a = nextFree(r, 0); a < cols; ) {
+            int b = nextReserved(r, a);
+            if (b - a >= n) {
+                int start = Math.max(a, Math.min(ideal, b - n));
+                int distance = Math.abs(start - ideal);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = start;
+                }
+                if (start >= ideal) break;  // runs further right only move away from the centre
+            }
+            a = b < cols ? nextFree(r, b) : cols;
+        }
+        return best;
+    }
+
+    // Length of the longest run of free seats in row r
+    private int longestFreeRun(int r) {
+        if (rowFree.get(r) == cols) return cols;
+        int longest = 0;
+        for (int a = nextFree(r, 0); a < cols; ) {
+            int b = nextReserved(r, a);
+            longest = Math.max(longest, b - a);
+            a = b < cols ? nextFree(r, b) : cols;
+        }
+        return longest;
+    }
+
+    // First free column at or after c in row r, or cols if there is none
+    private int nextFree(int r, int c) {
+        long[] bits = reserved[r];
+        int w = c >>> 6;
+        long word = ~bits[w] & (-1L << c);
+        while (word == 0) {
+            if (++w == bits.length) return cols;
+            word = ~bits[w];
+        }
+        return Math.min(cols, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    // First reserved column at or after c in row r, or cols if there is none
+    private int nextReserved(int r, int c) {
+        long[] bits = reserved[r];
+        int w = c >>> 6;
+        long word = bits[w] & (-1L << c);
+        while (word == 0) {
+            if (++w == bits.length) return cols;
+            word = bits[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    // Count available seats; held seats are not available
+    int availableCount() {
+        return free.get();
+    }
+
+    int heldCount() {
+        return heldSeats.get();
+    }
+
+    int availableCount(Category category) {
+        return categoryFree.get(category.ordinal());
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    // Free seats in a 1-based row, or 0 for a row outside the theater
+    int availableInRow(int row) {
+        return row >= 1 && row <= rows ? rowFree.get(row-1) : 0;
+    }
+
+    // Whether a 1-based row has no free seat; false for a row outside the theater
+    boolean isRowFull(int row) {
+        return row >= 1 && row <= rows && rowFree.get(row-1) == 0;
+    }
+
+    // Booked or held seats in a 1-based row, or 0 for a row outside the theater
+    int occupiedInRow(int row) {
+        return row >= 1 && row <= rows ? cols - rowFree.get(row-1) : 0;
+    }
+
+    int capacity(Category category) {
+        return (lastRow[category.ordinal()] - firstRow[category.ordinal()] + 1) * cols;
+    }
+
+    // Booked or held seats in a category
+    int occupied(Category category) {
+        return capacity(category) - availableCount(category);
+    }
+
+    // Seats booked less seats cancelled, over all of history
+    long seatsSold(Category category) {
+        return sales.booked(category) - sales.cancelled(category);
+    }
+
+    long cancelledSeats(Category category) {
+        return sales.cancelled(category);
+    }
+
+    // Revenue from bookings less cancellations, over all of history
+    double revenue(Category category) {
+        return sales.revenuePaise(category) / 100.0;
+    }
+
+    double revenue() {
+        return sales.revenuePaise() / 100.0;
+    }
+
+    // Bookings, cancellations and booked paise in each of the last minutes minutes (up to a
+    // day), oldest first
+    BookingLog.IntervalCounts salesLastMinutes(int minutes) {
+        return sales.lastMinutes(LocalDateTime.now(), minutes);
+    }
+
+    // Show current reservations in seat order, skipping the first offset and stopping after limit
+    void showReservationDetails(ListingWriter out, ListingWriter.Format format, int offset, int limit) throws IOException {
+        switch (format) {
+            case TABLE -> out.newline().text("Reserved Seats:").newline();
+            case CSV -> out.text("row,seat,category,customerName,bookedAt").newline();
+            case JSON -> { }
+        }
+        int index = 0, shown = 0;
+        for (int r = 0; r < rows && shown < limit; r++) {
+            if (rowFree.get(r) == cols) continue;
+            long[] bits = reserved[r], heldBits = held[r];
+            for (int w = 0; w < bits.length && shown < limit; w++) {
+                // walk the set bits of each word rather than testing every seat
+                for (long word = bits[w] & ~heldBits[w]; word != 0 && shown < limit; word &= word - 1) {
+                    int c = (w << 6) + Long.numberOfTrailingZeros(word);
+                    if (index++ < offset) continue;
+                    Occupant o = occupants[r].get(c);
+                    String customer = o == null ? "" : o.customerName;
+                    LocalDateTime bookedAt = o == null ? null : o.bookedAt;
+                    switch (format) {
+                        case TABLE -> {
+                            out.text("Row ").number(r + 1).text(" Seat ").number(c + 1).text(" - ")
+                               .text(customer).text(" - ").text(rowCategory[r].name()).text(" - Booked at ");
+                            if (bookedAt == null) out.ch('-'); else out.dateTime(bookedAt);
+                        }
+                        case CSV -> {
+                            out.number(r + 1).ch(',').number(c + 1).ch(',').text(rowCategory[r].name()).ch(',')
+                               .csvField(customer).ch(',');
+                            if (bookedAt != null) out.dateTime(bookedAt);
+                        }
+                        case JSON -> {
+                            out.text("{\"row\":").number(r + 1).text(",\"seat\":").number(c + 1)
+                               .text(",\"category\":").quoted(rowCategory[r].name())
+                               .text(",\"customer\":").quoted(customer).text(",\"bookedAt\":");
+                            if (bookedAt == null) out.text("null"); else out.ch('"').dateTime(bookedAt).ch('"');
+                            out.ch('}');
+                        }
+                    }
+                    out.newline();
+                    shown++;
+                }
+            }
+        }
+        if (index == 0 && limit > 0 && format == ListingWriter.Format.TABLE) out.text("No reservations yet.").newline();
+        out.flush();
+    }
+
+    // Search booking history by customer name, ignoring case
+    List<BookingRecord> searchByName(String name) {
+        int[] positions = customers.records(name);
+        List<BookingRecord> res = new ArrayList<>(positions.length);
+        for (int i : positions) res.add(history.get(i));
+        return res;
+    }
+
+    // Seats a customer still holds and what they paid for them, or null if they have never booked
+    CustomerIndex.Summary customerSummary(String name) {
+        return customers.summary(name);
+    }
+
+    // Up to limit customers whose name starts with prefix, ignoring case, in name order
+    List<CustomerIndex.Summary> customersByPrefix(String prefix, int limit) {
+        return customers.byPrefix(prefix, limit);
+    }
+
+    // Calculate total price for a list of seats
+    double calculateTotalPrice(List<int[]> positions) {
+        double total = 0;
+        for (int[] p : positions) {
+            if (validPosition(p[0], p[1])) total += priceMap.get(rowCategory[p[0]-1]);
+        }
+        return total;
+    }
+
+    // Validate seat position
+    private boolean validPosition(int row, int col) {
+        return row >= 1 && row <= rows && col >= 1 && col <= cols;
+    }
+
+    // Seat state and history length copied at one instant, for writing out while bookings go on
+    static final class Snapshot {
+        final long[][] bits;
+        final Occupant[][] occupants;  // null for rows with no reserved seat
+        final int historySize;
+
+        Snapshot(long[][] bits, Occupant[][] occupants, int historySize) {
+            this.bits = bits;
+            this.occupants = occupants;
+            this.historySize = historySize;
+        }
+    }
+
+    // Copies the state with every row locked, so seats and history agree with each other.
+    // Held seats are left out: until confirmed they are not bookings.
+    Snapshot snapshot() {
+        long[][] bits = new long[rows][];
+        Occupant[][] booked = new Occupant[rows][];
+        int historySize;
+        for (ReentrantLock lock : rowLocks) lock.lock();
+        try {
+            for (int r = 0; r < rows; r++) {
+                bits[r] = reserved[r].clone();
+                for (int w = 0; w < bits[r].length; w++) bits[r][w] &= ~held[r][w];
+                if (rowFree.get(r) == cols) continue;
+                booked[r] = new Occupant[cols];
+                for (int c = 0; c < cols; c++) if (isBooked(r, c)) booked[r][c] = occupants[r].get(c);
+            }
+            historySize = history.size();
+        } finally {
+            for (ReentrantLock lock : rowLocks) lock.unlock();
+        }
+        return new Snapshot(bits, booked, historySize);
+    }
+
+    // Rough size of a snapshot in records; the journal compacts once it has written this many
+    int snapshotSize() {
+        return rows * cols + history.size();
+    }
+
+    // Save seats to CSV and history to its binary file
+    void saveToFiles(String seatsFile, String historyFile) {
+        try {
+            writeSnapshot(snapshot(), seatsFile, historyFile);
+        } catch (IOException e) { System.out.println("Error saving data: " + e.getMessage()); }
+    }
+
+    // Writes seats.csv and the binary history file, each to a temporary file first, fsynced and
+    // then moved over the old one, so a crash at any point leaves a whole file of one or the other
+    void writeSnapshot(Snapshot snap, String seatsFile, String historyFile) throws IOException {
+        Path seatsTmp = Paths.get(seatsFile + ".tmp");
+        try (FileChannel ch = FileChannel.open(seatsTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ListingWriter out = new ListingWriter(Channels.newOutputStream(ch));
+            out.text("row,col,category,reserved,customerName,bookedAt").newline();
+            for (int r = 0; r < rows; r++)
+                for (int c = 0; c < cols; c++) {
+                    Occupant o = snap.occupants[r] == null ? null : snap.occupants[r][c];
+                    boolean taken = (snap.bits[r][c >>> 6] & (1L << c)) != 0;
+                    out.number(r + 1).ch(',').number(c + 1).ch(',').text(rowCategory[r].name()).ch(',')
+                       .text(taken ? "true" : "false").ch(',');
+                    if (o != null) {
+                        out.csvField(o.customerName).ch(',');
+                        if (o.bookedAt != null) out.dateTime(o.bookedAt);
+                    } else out.ch(',');
+                    out.newline();
+                }
+            out.flush();
+            ch.force(true);
+        }
+        Path historyTmp = Paths.get(historyFile + ".tmp");
+        history.write(historyTmp, snap.historySize);
+        // both files and their names must be on disk before the caller drops the journal
+        Files.move(seatsTmp, Paths.get(seatsFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(historyTmp, Paths.get(historyFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        GroupCommitLog.syncDirectory(Paths.get(seatsFile));
+        GroupCommitLog.syncDirectory(Paths.get(historyFile));
+    }
+
+    // Loads the snapshot, then replays the journal written since it and keeps journaling
+    // every booking and cancellation there. Returns the number of journal records replayed.
+    int recover(String seatsFile, String historyFile, String journalFile) throws IOException {
+        Metrics.time(LOAD_FROM_FILES, () -> loadFromFiles(seatsFile, historyFile));
+        SeatJournal j = new SeatJournal(journalFile, seatsFile, historyFile, this);
+        int replayed = j.recover();
+        journal = j;
+        return replayed;
+    }
+
+    // True once the journal has failed to write. It then refuses every change, and changes
+    // made just before the failure may be in memory without being on disk.
+    boolean journalFailed() {
+        return journal != null && journal.failed();
+    }
+
+    // Stops journaling without a checkpoint, for a theater whose memory may be ahead of its
+    // files; loading the show again gives back exactly what is on disk
+    void discard() throws IOException {
+        if (journal != null) journal.abandon();
+    }
+
+    // Folds the journal into a fresh snapshot and stops journaling
+    void close() throws IOException {
+        if (journal == null) return;
+        journal.checkpoint();
+        journal.close();
+    }
+
+    // Journal replay: the seats end up booked whatever their state was, and history gains
+    // only the records past what the snapshot already holds
+    void replayBooking(int historyIndex, LocalDateTime at, int[] rowsBooked, int[] seats, double[] prices, String name) {
+        Occupant occupant = new Occupant(name, at);
+        for (int i = 0; i < seats.length; i++) {
+            int r = rowsBooked[i] - 1, c = seats[i] - 1;
+            if (!validPosition(r + 1, c + 1)) continue;
+            if (isReserved(r, c)) occupants[r].put(c, occupant);
+            else take(r, c, occupant);
+            freeRuns.update(r, longestFreeRun(r));
+            if (historyIndex + i >= history.size()) {
+                BookingRecord br = new BookingRecord(name, r + 1, c + 1, rowCategory[r], prices[i], at);
+                history.add(br);
+                customers.add(history.size() - 1, br);
+                sales.add(br);
+            }
+        }
+    }
+
+    void replayCancel(int row, int col) {
+        if (!validPosition(row, col) || !isBooked(row-1, col-1)) return;
+        release(row-1, col-1);
+        freeRuns.update(row-1, longestFreeRun(row-1));
+    }
+
+    // Journal replay of a cancellation logged with its history entry
+    void replayCancel(int historyIndex, LocalDateTime at, int row, int col, double price, String name) {
+        replayCancel(row, col);
+        if (historyIndex >= history.size() && validPosition(row, col)) {
+            BookingRecord br = new BookingRecord(name, row, col, rowCategory[row-1], price, at, true);
+            history.add(br);
+            customers.cancel(br);
+            sales.add(br);
+        }
+    }
+
+    // Load seats from CSV and history from its binary file. A history file holding CSV, or a
+    // history.csv found beside a binary file that does not exist yet, is read as CSV, the
+    // format history was kept in before; the next snapshot writes it out as binary.
+    // A file that cannot be read in full fails the load and is left as it is: a theater opened
+    // on part of it would write that part over the whole file at its next snapshot.
+    void loadFromFiles(String seatsFile, String historyFile) throws IOException {
+        File sf = new File(seatsFile);
+        if (sf.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(sf))) {
+                br.readLine(); // skip header
+                String line;
+                for (int lineNo = 2; (line = br.readLine()) != null; lineNo++) {
+                    String[] parts = line.split(",", 6);
+                    if (parts.length < 6) continue;
+                    try {
+                        int row = Integer.parseInt(parts[0]);
+                        int col = Integer.parseInt(parts[1]);
+                        boolean taken = Boolean.parseBoolean(parts[3]);
+                        String name = parts[4];
+                        String time = parts[5];
+                        if (validPosition(row, col) && taken && !isReserved(row-1, col-1)) {
+                            take(row-1, col-1, new Occupant(name.equals("null") ? "" : name,
+                                    time.isEmpty() ? null : LocalDateTime.parse(time, dtf)));
+                        }
+                    } catch (IllegalArgumentException | DateTimeException e) {
+                        throw new IOException(seatsFile + " is corrupt at line " + lineNo + ": " + e.getMessage());
+                    }
+                }
+            }
+            for (int r = 0; r < rows; r++) freeRuns.update(r, longestFreeRun(r));
+        }
+
+        Path hf = Paths.get(historyFile);
+        if (BookingLog.isBinary(hf)) history.read(hf);
+        else if (Files.exists(hf)) loadHistoryCsv(hf);
+        else loadHistoryCsv(hf.resolveSibling(hf.getFileName().toString().replaceFirst("\\.[^.]*$", "") + ".csv"));
+        customers.rebuild(history);
+        sales.rebuild(history);
+    }
+
+    private void loadHistoryCsv(Path hf) throws IOException {
+        readHistoryCsv(hf, history);
+    }
+
+    // History from either file format, on its own, for tools that replay it against another theater
+    static BookingLog readHistory(Path hf) throws IOException {
+        BookingLog log = new BookingLog();
+        if (BookingLog.isBinary(hf)) log.read(hf);
+        else readHistoryCsv(hf, log);
+        return log;
+    }
+
+    private static void readHistoryCsv(Path hf, BookingLog history) throws IOException {
+        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        if (Files.exists(hf)) {
+            try (BufferedReader br = Files.newBufferedReader(hf)) {
+                br.readLine(); // skip header
+                String line;
+                for (int lineNo = 2; (line = br.readLine()) != null; lineNo++) {
+                    String[] parts = line.split(",", 7);
+                    if (parts.length < 6) continue;
+                    try {
+                        String name = parts[0];
+                        int row = Integer.parseInt(parts[1]);
+                        int seat = Integer.parseInt(parts[2]);
+                        Category cat = Category.valueOf(parts[3]);
+                        double price = Double.parseDouble(parts[4]);
+                        LocalDateTime ts = parts[5].isEmpty() ? null : LocalDateTime.parse(parts[5], dtf);
+                        boolean cancelled = parts.length == 7 && parts[6].equals("cancelled");
+                        history.add(new BookingRecord(name, row, seat, cat, price, ts, cancelled));
+                    } catch (IllegalArgumentException | DateTimeException e) {
+                        throw new IOException(hf + " is corrupt at line " + lineNo + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // Bookings and cancellations stamped within [from, to], in the order they happened
+    List<BookingRecord> eventsBetween(LocalDateTime from, LocalDateTime to) {
+        List<BookingRecord> events = new ArrayList<>();
+        history.forEachBetween(from, to, i -> events.add(history.get(i)));
+        return events;
+    }
+
+    // Bookings, cancellations and takings in each of intervals consecutive steps from start
+    BookingLog.IntervalCounts salesBetween(LocalDateTime start, Duration step, int intervals) {
+        return history.countBetween(start, step.getSeconds(), intervals);
+    }
+
+    // Booked seats as they stood at time t, rebuilt from the current seats by undoing, newest
+    // first, every event logged from the first one stamped after t. Only those events are
+    // read, so recent times are cheap however long history is. Occupants restored by undoing
+    // a cancellation have no booking time.
+    Snapshot seatsAsOf(LocalDateTime t) {
+        Snapshot now = snapshot();
+        for (int i = now.historySize - 1, stop = history.countUpTo(t, now.historySize); i >= stop; i--) {
+            int r = history.row(i) - 1, c = history.seat(i) - 1;
+            if (r < 0 || r >= rows || c < 0 || c >= cols) continue;
+            if (history.isCancellation(i)) {
+                now.bits[r][c >>> 6] |= 1L << c;
+                if (now.occupants[r] == null) now.occupants[r] = new Occupant[cols];
+                now.occupants[r][c] = new Occupant(history.name(history.customerId(i)), null);
+            } else {
+                now.bits[r][c >>> 6] &= ~(1L << c);
+                if (now.occupants[r] != null) now.occupants[r][c] = null;
+            }
+        }
+        return now;
+    }
+
+    // Print booking history entries [offset, offset + limit)
+    void printHistory(ListingWriter out, ListingWriter.Format format, int offset, int limit) throws IOException {
+        if (history.isEmpty()) { out.text("No booking history yet.").newline(); out.flush(); return; }
+        if (format == ListingWriter.Format.TABLE) out.newline().text("Booking History:").newline();
+        printBookings(history, out, format, offset, limit);
+    }
+
+    // Write booking records; CSV matches the layout of the old history.csv, which loadFromFiles still reads
+    void printBookings(List<BookingRecord> records, ListingWriter out, ListingWriter.Format format,
+                       int offset, int limit) throws IOException {
+        if (format == ListingWriter.Format.CSV) out.text("customerName,row,seat,category,price,timestamp,event").newline();
+        int from = Math.max(0, Math.min(offset, records.size()));
+        int to = (int) Math.min(records.size(), from + (long) Math.max(0, limit));
+        for (BookingRecord br : records.subList(from, to)) {
+            switch (format) {
+                case TABLE -> {
+                    out.text(br.customerName).text(" - Row ").number(br.row).text(" Seat ").number(br.seatNumber)
+                       .text(" - ").text(br.category.name()).text(" - ₹").decimal2(br.price).text(" - ");
+                    if (br.timestamp == null) out.ch('-'); else out.dateTime(br.timestamp);
+                    if (br.cancellation) out.text(" - CANCELLED");
+                }
+                case CSV -> {
+                    out.csvField(br.customerName).ch(',').number(br.row).ch(',').number(br.seatNumber).ch(',')
+                       .text(br.category.name()).ch(',').decimal2(br.price).ch(',');
+                    if (br.timestamp != null) out.dateTime(br.timestamp);
+                    out.text(br.cancellation ? ",cancelled" : ",booked");
+                }
+                case JSON -> {
+                    out.text("{\"customer\":").quoted(br.customerName).text(",\"row\":").number(br.row)
+                       .text(",\"seat\":").number(br.seatNumber).text(",\"category\":").quoted(br.category.name())
+                       .text(",\"price\":").decimal2(br.price).text(",\"timestamp\":");
+                    if (br.timestamp == null) out.text("null"); else out.ch('"').dateTime(br.timestamp).ch('"');
+                    out.text(",\"event\":").quoted(br.cancellation ? "cancelled" : "booked").ch('}');
+                }
+            }
+            out.newline();
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Hashed timer wheel: a ring of slots, one per tick, each holding a linked list of the timeouts
+// whose deadline tick hashes to it. Scheduling and cancelling are O(1) list operations, and
+// each tick one thread visits a single slot, firing what is due and leaving timeouts for a
+// later lap in place. Nothing scans every timeout, so hundreds of thousands of pending ones
+// cost memory but not time. Tasks run on the wheel's thread and should be short.
+class TimerWheel {
+    final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private Timeout prev, next;
+        private boolean linked;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        // Stops the task from running; false if it already ran or was cancelled
+        boolean cancel() {
+            synchronized (lock) {
+                if (!linked) return false;
+                unlink(this);
+                return true;
+            }
+        }
+    }
+
+    private final long tickNanos;
+    private final Timeout[] slots;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final Object lock = new Object();
+    private long tick;  // next tick to process; guarded by lock
+
+    TimerWheel(String name, long tickDuration, TimeUnit unit, int slotCount) {
+        if (Integer.bitCount(slotCount) != 1) throw new IllegalArgumentException("slot count must be a power of two");
+        tickNanos = unit.toNanos(tickDuration);
+        slots = new Timeout[slotCount];
+        mask = slotCount - 1;
+        Thread worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Runs task once delay has passed, rounded up to the next tick
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long due = System.nanoTime() - startNanos + unit.toNanos(delay);
+        long dueTick = (due + tickNanos - 1) / tickNanos;
+        synchronized (lock) {
+            Timeout t = new Timeout(task, Math.max(dueTick, tick));
+            int slot = (int) (t.deadlineTick & mask);
+            t.next = slots[slot];
+            if (t.next != null) t.next.prev = t;
+            slots[slot] = t;
+            t.linked = true;
+            return t;
+        }
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) t.prev.next = t.next;
+        else slots[(int) (t.deadlineTick & mask)] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.linked = false;
+    }
+
+    private void run() {
+        List<Runnable> due = new ArrayList<>();
+        while (true) {
+            long wait;
+            synchronized (lock) {
+                wait = startNanos + tick * tickNanos - System.nanoTime();
+                if (wait <= 0) {
+                    for (Timeout t = slots[(int) (tick & mask)], next; t != null; t = next) {
+                        next = t.next;
+                        if (t.deadlineTick > tick) continue;  // a later lap round the wheel
+                        unlink(t);
+                        due.add(t.task);
+                    }
+                    tick++;
+                }
+            }
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            for (Runnable task : due) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Error in timer task: " + e);
+                }
+            }
+            due.clear();
+        }
+    }
+}
@@ -12,256 +12,26 @@
 
 // Persistent data storage in CSV files.
 
-// Clean, menu-driven console interface.
-import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
-
-// Enum for seat categories
-enum Category { VIP, REGULAR, ECONOMY }
-
-// Seat class representing each seat in the theater
-class Seat {
-    int row, number;
-    Category category;
-    boolean reserved;
-    String customerName;
-    LocalDateTime bookedAt;
-
-    Seat(int row, int number, Category category) {
-        this.row = row;
-        this.number = number;
-        this.category = category;
-        this.reserved = false;
-        this.customerName = "";
-        this.bookedAt = null;
-    }
-
-    // Short representation of seat for display
-    String shortDisplay() {
-        if (reserved) return "X";
-        switch (category) {
-            case VIP: return "V";
-            case REGULAR: return "R";
-            default: return "E";
-        }
-    }
-}
+// Many shows, each with its own seating map and files.
 
-// Booking record class to store reservation history
-class BookingRecord {
-    String customerName;
-    int row, seatNumber;
-    Category category;
-    double price;
-    LocalDateTime timestamp;
+// Holding seats while a customer pays.
 
-    BookingRecord(String customerName, int row, int seatNumber, Category category, double price, LocalDateTime timestamp) {
-        this.customerName = customerName;
-        this.row = row;
-        this.seatNumber = seatNumber;
-        this.category = category;
-        this.price = price;
-        this.timestamp = timestamp;
-    }
-}
+// Sales and seating maps for any past time.
 
-// Theater class handling seat management and bookings
-class Theater {
-    private Seat[][] seats;
-    private int rows, cols;
-    private Map<Category, Double> priceMap;
-    private List<BookingRecord> history;
-    private DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+// Timing of every operation, over JMX or dumped to a file.
 
-    Theater(int rows, int cols, Map<Category, Double> priceMap) {
-        this.rows = rows;
-        this.cols = cols;
-        this.priceMap = priceMap;
-        this.history = new ArrayList<>();
-        seats = new Seat[rows][cols];
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Category cat = (r < Math.max(1, rows/5)) ? Category.VIP :
-                               (r < Math.max(1, rows*3/5)) ? Category.REGULAR : Category.ECONOMY;
-                seats[r][c] = new Seat(r + 1, c + 1, cat);
-            }
-        }
-    }
+// Live sales dashboard: occupancy, revenue and the last minutes' sales.
 
-    // Display the seating map
-    void displaySeating() {
-        System.out.println("\nSeating Map:");
-        System.out.print("     ");
-        for (int c = 0; c < cols; c++) System.out.printf(" %2d  ", c+1);
-        System.out.println("\n    " + "-----".repeat(Math.max(0, cols)));
-        for (int r = 0; r < rows; r++) {
-            System.out.printf("R%2d |", r+1);
-            for (int c = 0; c < cols; c++)
-                System.out.printf(" %s   ", seats[r][c].shortDisplay());
-            System.out.println("  (" + seats[r][0].category + ")");
-        }
-        System.out.println("Legend: V=VIP, R=Regular, E=Economy, X=Reserved");
-        System.out.println("Prices: VIP=" + priceMap.get(Category.VIP) +
-                           ", REGULAR=" + priceMap.get(Category.REGULAR) +
-                           ", ECONOMY=" + priceMap.get(Category.ECONOMY));
-    }
-
-    // Reserve seats
-    boolean reserveSeats(List<int[]> positions, String name) {
-        for (int[] pos : positions) {
-            if (!validPosition(pos[0], pos[1]) || seats[pos[0]-1][pos[1]-1].reserved) return false;
-        }
-        LocalDateTime now = LocalDateTime.now();
-        for (int[] pos : positions) {
-            Seat s = seats[pos[0]-1][pos[1]-1];
-            s.reserved = true;
-            s.customerName = name;
-            s.bookedAt = now;
-            history.add(new BookingRecord(name, s.row, s.number, s.category, priceMap.get(s.category), now));
-        }
-        return true;
-    }
-
-    // Cancel a reservation
-    boolean cancelReservation(int row, int col) {
-        if (!validPosition(row, col)) return false;
-        Seat s = seats[row-1][col-1];
-        if (!s.reserved) return false;
-        s.reserved = false;
-        s.customerName = "";
-        s.bookedAt = null;
-        return true;
-    }
+// Load testing: booking storms and history replays against an in-process theater.
 
-    // Count available seats
-    int availableCount() {
-        int count = 0;
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++)
-                if (!seats[r][c].reserved) count++;
-        return count;
-    }
-
-    // Show all current reservations
-    void showReservationDetails() {
-        System.out.println("\nReserved Seats:");
-        boolean any = false;
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++) {
-                Seat s = seats[r][c];
-                if (s.reserved) {
-                    System.out.println("Row " + s.row + " Seat " + s.number + " - " + s.customerName +
-                                       " - " + s.category + " - Booked at " +
-                                       (s.bookedAt == null ? "-" : s.bookedAt.format(dtf)));
-                    any = true;
-                }
-            }
-        if (!any) System.out.println("No reservations yet.");
-    }
-
-    // Search booking history by customer name
-    List<BookingRecord> searchByName(String name) {
-        List<BookingRecord> res = new ArrayList<>();
-        for (BookingRecord br : history)
-            if (br.customerName.equalsIgnoreCase(name)) res.add(br);
-        return res;
-    }
-
-    // Calculate total price for a list of seats
-    double calculateTotalPrice(List<int[]> positions) {
-        double total = 0;
-        for (int[] p : positions) {
-            if (validPosition(p[0], p[1])) total += priceMap.get(seats[p[0]-1][p[1]-1].category);
-        }
-        return total;
-    }
-
-    // Validate seat position
-    private boolean validPosition(int row, int col) {
-        return row >= 1 && row <= rows && col >= 1 && col <= cols;
-    }
-
-    // Save seats and history to CSV files
-    void saveToFiles(String seatsFile, String historyFile) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(seatsFile))) {
-            pw.println("row,col,category,reserved,customerName,bookedAt");
-            for (int r = 0; r < rows; r++)
-                for (int c = 0; c < cols; c++) {
-                    Seat s = seats[r][c];
-                    String nameEsc = s.customerName.replace("\n", " ").replace(",", " ");
-                    String time = s.bookedAt == null ? "" : s.bookedAt.format(dtf);
-                    pw.printf("%d,%d,%s,%b,%s,%s\n", s.row, s.number, s.category, s.reserved, nameEsc, time);
-                }
-        } catch (IOException e) { System.out.println("Error saving seats: " + e.getMessage()); }
-
-        try (PrintWriter pw = new PrintWriter(new FileWriter(historyFile))) {
-            pw.println("customerName,row,seat,category,price,timestamp");
-            for (BookingRecord br : history) {
-                String nameEsc = br.customerName.replace("\n", " ").replace(",", " ");
-                String ts = br.timestamp == null ? "" : br.timestamp.format(dtf);
-                pw.printf("%s,%d,%d,%s,%.2f,%s\n", nameEsc, br.row, br.seatNumber, br.category, br.price, ts);
-            }
-        } catch (IOException e) { System.out.println("Error saving history: " + e.getMessage()); }
-    }
-
-    // Load seats and history from CSV files
-    void loadFromFiles(String seatsFile, String historyFile) {
-        File sf = new File(seatsFile);
-        if (sf.exists()) {
-            try (BufferedReader br = new BufferedReader(new FileReader(sf))) {
-                br.readLine(); // skip header
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] parts = line.split(",", 6);
-                    if (parts.length < 6) continue;
-                    int row = Integer.parseInt(parts[0]);
-                    int col = Integer.parseInt(parts[1]);
-                    boolean reserved = Boolean.parseBoolean(parts[3]);
-                    String name = parts[4];
-                    String time = parts[5];
-                    if (validPosition(row, col)) {
-                        Seat s = seats[row-1][col-1];
-                        s.reserved = reserved;
-                        s.customerName = name.equals("null") ? "" : name;
-                        if (!time.isEmpty()) s.bookedAt = LocalDateTime.parse(time, dtf);
-                    }
-                }
-            } catch (IOException e) { System.out.println("Error loading seats: " + e.getMessage()); }
-        }
-
-        File hf = new File(historyFile);
-        if (hf.exists()) {
-            try (BufferedReader br = new BufferedReader(new FileReader(hf))) {
-                br.readLine(); // skip header
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] parts = line.split(",", 6);
-                    if (parts.length < 6) continue;
-                    String name = parts[0];
-                    int row = Integer.parseInt(parts[1]);
-                    int seat = Integer.parseInt(parts[2]);
-                    Category cat = Category.valueOf(parts[3]);
-                    double price = Double.parseDouble(parts[4]);
-                    LocalDateTime ts = parts[5].isEmpty() ? null : LocalDateTime.parse(parts[5], dtf);
-                    history.add(new BookingRecord(name, row, seat, cat, price, ts));
-                }
-            } catch (IOException e) { System.out.println("Error loading history: " + e.getMessage()); }
-        }
-    }
-
-    // Print complete booking history
-    void printHistory() {
-        if (history.isEmpty()) { System.out.println("No booking history yet."); return; }
-        System.out.println("\nBooking History:");
-        for (BookingRecord br : history) {
-            System.out.println(br.customerName + " - Row " + br.row + " Seat " + br.seatNumber +
-                               " - " + br.category + " - ₹" + String.format("%.2f", br.price) +
-                               " - " + (br.timestamp == null ? "-" : br.timestamp.format(dtf)));
-        }
-    }
-}
+// Clean, menu-driven console interface.
+import java.io.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 // Main class with menu-driven interface
 public class srs {
@@ -272,12 +42,35 @@ public class srs {
         priceMap.put(Category.REGULAR, 300.0);
         priceMap.put(Category.ECONOMY, 150.0);
 
-        Theater theater = new Theater(8, 10, priceMap);
-        theater.loadFromFiles("seats.csv", "history.csv");
+        ListingWriter out = new ListingWriter(System.out);
+        Metrics.publish("srs");
+        // srs --load storm|replay <history> [options]: a load test instead of the menu; see SeatLoad
+        if (args.length > 0 && args[0].equals("--load")) {
+            try {
+                if (new SeatLoad(Arrays.copyOfRange(args, 1, args.length), priceMap).run() > 0) System.exit(2);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid load test: " + e.getMessage());
+                System.exit(1);
+            } catch (IOException e) {
+                System.out.println("Error in load test: " + e.getMessage());
+                System.exit(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        ShowRegistry registry;
+        try {
+            registry = new ShowRegistry("shows.csv");
+            // the single theater from before shows existed keeps its files and becomes the first show
+            if (registry.isEmpty()) registry.addShow(new ShowRegistry.Show("main", "Screen 1", null, null, 8, 10, priceMap, "."));
+        } catch (IOException e) { System.out.println("Error loading shows: " + e.getMessage()); return; }
+        List<ShowRegistry.Show> current = registry.currentShows(LocalDateTime.now());
+        String show = current.isEmpty() ? null : current.get(0).id;
 
         boolean running = true;
         while (running) {
-            System.out.println("\n------- MENU -------");
+            System.out.println("\n------- MENU" + (show == null ? "" : " (show " + show + ")") + " -------");
             System.out.println("1. View seating map");
             System.out.println("2. Book seat(s)");
             System.out.println("3. Cancel a reservation");
@@ -285,16 +78,32 @@ public class srs {
             System.out.println("5. List all reservations");
             System.out.println("6. Search bookings by customer name");
             System.out.println("7. View booking history");
-            System.out.println("8. Exit");
+            System.out.println("8. Book best available seats");
+            System.out.println("9. Find customers by name prefix");
+            System.out.println("10. Choose show");
+            System.out.println("11. Add a show");
+            System.out.println("12. Hold seats");
+            System.out.println("13. Confirm a hold");
+            System.out.println("14. Release a hold");
+            System.out.println("15. Sales between two times");
+            System.out.println("16. Seating map as of a time");
+            System.out.println("17. Dump metrics to a file");
+            System.out.println("18. Sales dashboard");
+            System.out.println("0. Exit");
             System.out.print("Choose an option: ");
 
             String input = sc.nextLine();
             int opt;
             try { opt = Integer.parseInt(input); } 
-            catch (NumberFormatException e) { System.out.println("Invalid input. Enter a number 1-8."); continue; }
+            catch (NumberFormatException e) { System.out.println("Invalid input. Enter a number 0-18."); continue; }
+            if (show == null && (opt >= 1 && opt <= 9 || opt >= 12 && opt <= 16 || opt == 18)) { System.out.println("No show chosen. Choose or add a show first."); continue; }
+            String id = show;
 
             switch (opt) {
-                case 1 -> theater.displaySeating();
+                case 1 -> {
+                    try { registry.run(id, Theater.DISPLAY_SEATING, Theater::displaySeating); }
+                    catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
                 case 2 -> {
                     try {
                         System.out.print("Enter seats to book (row-seat,row-seat,...): ");
@@ -307,13 +116,18 @@ public class srs {
                         }
                         System.out.print("Enter customer name: ");
                         String name = sc.nextLine().trim();
-                        double total = theater.calculateTotalPrice(positions);
-                        if (theater.reserveSeats(positions, name)) {
+                        double total = registry.call(id, Theater.CALCULATE_TOTAL_PRICE, t -> t.calculateTotalPrice(positions));
+                        if (registry.call(id, Theater.RESERVE_SEATS, t -> t.reserveSeats(positions, name))) {
                             System.out.println("Seats booked successfully!");
                             System.out.println("Total price: ₹" + String.format("%.2f", total));
-                            theater.saveToFiles("seats.csv", "history.csv");
-                            theater.displaySeating();
-                        } else System.out.println("Failed to book seats. They might be reserved or invalid.");
+                            registry.run(id, Theater.DISPLAY_SEATING, Theater::displaySeating);
+                        } else {
+                            StringJoiner full = new StringJoiner(", ");
+                            registry.run(id, t -> positions.stream().mapToInt(p -> p[0]).distinct().filter(t::isRowFull)
+                                    .forEach(r -> full.add(String.valueOf(r))));
+                            System.out.println("Failed to book seats. " + (full.length() == 0 ? "They might be reserved or invalid."
+                                    : "Full rows: " + full + "."));
+                        }
                     } catch (Exception e) { System.out.println("Error: " + e.getMessage()); }
                 }
                 case 3 -> {
@@ -322,30 +136,240 @@ public class srs {
                         int row = Integer.parseInt(sc.nextLine());
                         System.out.print("Enter seat number to cancel: ");
                         int col = Integer.parseInt(sc.nextLine());
-                        if (theater.cancelReservation(row, col)) {
+                        if (registry.call(id, Theater.CANCEL_RESERVATION, t -> t.cancelReservation(row, col))) {
                             System.out.println("Reservation cancelled successfully.");
-                            theater.saveToFiles("seats.csv", "history.csv");
-                            theater.displaySeating();
+                            registry.run(id, Theater.DISPLAY_SEATING, Theater::displaySeating);
                         } else System.out.println("Failed to cancel reservation. Seat might be empty or invalid.");
-                    } catch (Exception e) { System.out.println("Invalid input."); }
+                    } catch (UncheckedIOException e) { System.out.println("Error saving data: " + e.getCause().getMessage()); }
+                    catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                    catch (Exception e) { System.out.println("Invalid input."); }
+                }
+                case 4 -> {
+                    try {
+                        String counts = registry.call(id, t -> "Available seats count: " + t.availableCount()
+                                + " (VIP " + t.availableCount(Category.VIP)
+                                + ", REGULAR " + t.availableCount(Category.REGULAR)
+                                + ", ECONOMY " + t.availableCount(Category.ECONOMY) + ")"
+                                + (t.heldCount() > 0 ? ", " + t.heldCount() + " held" : ""));
+                        System.out.println(counts);
+                    } catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 5, 7 -> {
+                    System.out.print("Output format - table, csv or json (Enter for table): ");
+                    ListingWriter.Format format = ListingWriter.parseFormat(sc.nextLine());
+                    if (format == null) { System.out.println("Invalid format."); continue; }
+                    try {
+                        System.out.print("Start at entry (Enter for 1): ");
+                        String from = sc.nextLine().trim();
+                        System.out.print("How many entries (Enter for all): ");
+                        String count = sc.nextLine().trim();
+                        int offset = from.isEmpty() ? 0 : Integer.parseInt(from) - 1;
+                        int limit = count.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(count);
+                        if (opt == 5) registry.run(id, Theater.SHOW_RESERVATION_DETAILS,
+                                t -> t.showReservationDetails(out, format, offset, limit));
+                        else registry.run(id, Theater.PRINT_HISTORY, t -> t.printHistory(out, format, offset, limit));
+                    } catch (NumberFormatException e) { System.out.println("Invalid input."); }
+                    catch (IOException e) { System.out.println("Error writing listing: " + e.getMessage()); }
                 }
-                case 4 -> System.out.println("Available seats count: " + theater.availableCount());
-                case 5 -> theater.showReservationDetails();
                 case 6 -> {
                     System.out.print("Enter customer name to search: ");
                     String searchName = sc.nextLine().trim();
-                    List<BookingRecord> results = theater.searchByName(searchName);
-                    if (results.isEmpty()) System.out.println("No bookings found for " + searchName);
-                    else for (BookingRecord br : results)
-                        System.out.println(br.customerName + " - Row " + br.row + " Seat " + br.seatNumber +
-                                           " - " + br.category + " - ₹" + String.format("%.2f", br.price) +
-                                           " - " + (br.timestamp == null ? "-" : br.timestamp.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))));
+                    try {
+                        registry.run(id, t -> {
+                            List<BookingRecord> results = Metrics.time(Theater.SEARCH_BY_NAME, () -> t.searchByName(searchName));
+                            if (results.isEmpty()) { System.out.println("No bookings found for " + searchName); return; }
+                            t.printBookings(results, out, ListingWriter.Format.TABLE, 0, results.size());
+                            CustomerIndex.Summary summary =
+                                    Metrics.time(Theater.CUSTOMER_SUMMARY, () -> t.customerSummary(searchName));
+                            System.out.println("Total: " + summary.seats + " seat(s), ₹" + String.format("%.2f", summary.spent()));
+                        });
+                    } catch (IOException e) { System.out.println("Error writing listing: " + e.getMessage()); }
+                }
+                case 8 -> {
+                    try {
+                        System.out.print("Number of adjacent seats: ");
+                        int count = Integer.parseInt(sc.nextLine().trim());
+                        System.out.print("Category (VIP, REGULAR, ECONOMY): ");
+                        Category category = Category.valueOf(sc.nextLine().trim().toUpperCase());
+                        System.out.print("Enter customer name: ");
+                        String name = sc.nextLine().trim();
+                        List<int[]> booked = registry.call(id, Theater.RESERVE_BEST_AVAILABLE,
+                                t -> t.reserveBestAvailable(count, category, name));
+                        if (booked != null) {
+                            int[] first = booked.get(0), last = booked.get(booked.size() - 1);
+                            System.out.println("Seats booked successfully: Row " + first[0] + " Seat " + first[1]
+                                    + (booked.size() > 1 ? "-" + last[1] : ""));
+                            double total = registry.call(id, Theater.CALCULATE_TOTAL_PRICE, t -> t.calculateTotalPrice(booked));
+                            System.out.println("Total price: ₹" + String.format("%.2f", total));
+                            registry.run(id, Theater.DISPLAY_SEATING, Theater::displaySeating);
+                        } else System.out.println("No " + count + " adjacent " + category + " seats are free.");
+                    } catch (IllegalArgumentException e) { System.out.println("Invalid input."); }
+                    catch (UncheckedIOException e) { System.out.println("Error saving data: " + e.getCause().getMessage()); }
+                    catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 9 -> {
+                    System.out.print("Enter start of customer name: ");
+                    String prefix = sc.nextLine().trim();
+                    try {
+                        List<CustomerIndex.Summary> found =
+                                registry.call(id, Theater.CUSTOMERS_BY_PREFIX, t -> t.customersByPrefix(prefix, 50));
+                        if (found.isEmpty()) System.out.println("No customers found starting with " + prefix);
+                        for (CustomerIndex.Summary c : found)
+                            System.out.println(c.name + " - " + c.seats + " seat(s), ₹" + String.format("%.2f", c.spent()));
+                    } catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 10 -> {
+                    List<ShowRegistry.Show> shows = registry.currentShows(LocalDateTime.now());
+                    if (shows.isEmpty()) { System.out.println("No upcoming shows."); continue; }
+                    for (int i = 0; i < shows.size(); i++) {
+                        ShowRegistry.Show s = shows.get(i);
+                        System.out.println((i + 1) + ". " + s.id + " - " + s.screen
+                                + (s.startsAt == null ? "" : " at " + s.startsAt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
+                    }
+                    System.out.print("Choose show: ");
+                    try {
+                        show = shows.get(Integer.parseInt(sc.nextLine().trim()) - 1).id;
+                    } catch (RuntimeException e) { System.out.println("Invalid input."); }
+                }
+                case 11 -> {
+                    try {
+                        System.out.print("Show ID (letters, digits, - and _): ");
+                        String newId = sc.nextLine().trim();
+                        System.out.print("Screen: ");
+                        String screen = sc.nextLine().trim();
+                        System.out.print("Starts at (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime startsAt = ShowRegistry.parseTime(sc.nextLine().trim());
+                        System.out.print("Ends at (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime endsAt = ShowRegistry.parseTime(sc.nextLine().trim());
+                        System.out.print("Rows: ");
+                        int rows = Integer.parseInt(sc.nextLine().trim());
+                        System.out.print("Seats per row: ");
+                        int cols = Integer.parseInt(sc.nextLine().trim());
+                        registry.addShow(new ShowRegistry.Show(newId, screen, startsAt, endsAt, rows, cols,
+                                priceMap, Paths.get("shows", newId).toString()));
+                        show = newId;
+                        System.out.println("Show " + newId + " added.");
+                    } catch (IOException e) { System.out.println("Error saving shows: " + e.getMessage()); }
+                    catch (RuntimeException e) { System.out.println("Invalid input: " + e.getMessage()); }
+                }
+                case 12 -> {
+                    try {
+                        System.out.print("Enter seats to hold (row-seat,row-seat,...): ");
+                        List<int[]> positions = new ArrayList<>();
+                        for (String p : sc.nextLine().split(",")) {
+                            String[] xy = p.trim().split("-");
+                            if (xy.length != 2) throw new NumberFormatException();
+                            positions.add(new int[]{Integer.parseInt(xy[0]), Integer.parseInt(xy[1])});
+                        }
+                        System.out.print("Enter customer name: ");
+                        String name = sc.nextLine().trim();
+                        System.out.print("Hold for how many minutes: ");
+                        Duration ttl = Duration.ofMinutes(Long.parseLong(sc.nextLine().trim()));
+                        if (ttl.isNegative() || ttl.isZero()) throw new NumberFormatException();
+                        long holdId = registry.call(id, Theater.HOLD_SEATS, t -> t.holdSeats(positions, name, ttl));
+                        if (holdId > 0) {
+                            System.out.println("Seats held. Hold ID: " + holdId + " (expires in " + ttl.toMinutes() + " min)");
+                            registry.run(id, Theater.DISPLAY_SEATING, Theater::displaySeating);
+                        } else System.out.println("Failed to hold seats. They might be reserved or invalid.");
+                    } catch (NumberFormatException e) { System.out.println("Invalid input."); }
+                    catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 13, 14 -> {
+                    try {
+                        System.out.print("Enter hold ID: ");
+                        long holdId = Long.parseLong(sc.nextLine().trim());
+                        boolean done = opt == 13 ? registry.call(id, Theater.CONFIRM_HOLD, t -> t.confirmHold(holdId))
+                                                 : registry.call(id, Theater.RELEASE_HOLD, t -> t.releaseHold(holdId));
+                        if (done) System.out.println(opt == 13 ? "Hold confirmed; seats booked." : "Hold released.");
+                        else System.out.println("No open hold " + holdId + ". It may have expired.");
+                    } catch (NumberFormatException e) { System.out.println("Invalid input."); }
+                    catch (UncheckedIOException e) { System.out.println("Error saving data: " + e.getCause().getMessage()); }
+                    catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 15 -> {
+                    try {
+                        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+                        System.out.print("From (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime from = LocalDateTime.parse(sc.nextLine().trim(), fmt);
+                        System.out.print("To (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime to = LocalDateTime.parse(sc.nextLine().trim(), fmt);
+                        System.out.print("Interval in minutes (Enter for 60): ");
+                        String step = sc.nextLine().trim();
+                        Duration interval = Duration.ofMinutes(step.isEmpty() ? 60 : Long.parseLong(step));
+                        if (!to.isAfter(from) || interval.isNegative() || interval.isZero()) throw new NumberFormatException();
+                        int intervals = (int) Math.min(10_000, (Duration.between(from, to).getSeconds() + interval.getSeconds() - 1) / interval.getSeconds());
+                        registry.run(id, t -> {
+                            List<BookingRecord> events = Metrics.time(Theater.EVENTS_BETWEEN, () -> t.eventsBetween(from, to));
+                            if (events.isEmpty()) System.out.println("No bookings or cancellations in that time.");
+                            else t.printBookings(events, out, ListingWriter.Format.TABLE, 0, events.size());
+                            BookingLog.IntervalCounts counts =
+                                    Metrics.time(Theater.SALES_BETWEEN, () -> t.salesBetween(from, interval, intervals));
+                            for (int i = 0; i < intervals; i++) {
+                                if (counts.booked[i] == 0 && counts.cancelled[i] == 0) continue;
+                                System.out.println(counts.intervalStart(i).format(fmt) + "  booked " + counts.booked[i]
+                                        + " (₹" + String.format("%.2f", counts.bookedPaise[i] / 100.0) + "), cancelled " + counts.cancelled[i]);
+                            }
+                        });
+                    } catch (DateTimeParseException | NumberFormatException e) { System.out.println("Invalid input."); }
+                    catch (IOException e) { System.out.println("Error writing listing: " + e.getMessage()); }
+                }
+                case 16 -> {
+                    try {
+                        System.out.print("As of (yyyy-MM-dd HH:mm): ");
+                        LocalDateTime at = LocalDateTime.parse(sc.nextLine().trim(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+                        registry.run(id, Theater.DISPLAY_SEATING_AS_OF, t -> t.displaySeatingAsOf(at));
+                    } catch (DateTimeParseException e) { System.out.println("Invalid input."); }
+                    catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 17 -> {
+                    System.out.print("File name (metrics.csv): ");
+                    String file = sc.nextLine().trim();
+                    if (file.isEmpty()) file = "metrics.csv";
+                    try {
+                        Metrics.dump(Paths.get(file));
+                        System.out.println("Metrics written to " + file);
+                    } catch (IOException e) { System.out.println("Error writing metrics: " + e.getMessage()); }
+                }
+                case 18 -> {
+                    try {
+                        registry.run(id, t -> {
+                            System.out.println("\nCategory   Occupied         Sold  Cancelled     Revenue");
+                            for (Category cat : Category.values()) {
+                                int cap = t.capacity(cat), occ = t.occupied(cat);
+                                System.out.printf("%-10s %5d/%-5d %3d%% %6d %10d %11s%n", cat, occ, cap, cap == 0 ? 0 : occ * 100 / cap,
+                                        t.seatsSold(cat), t.cancelledSeats(cat), "₹" + String.format("%.2f", t.revenue(cat)));
+                            }
+                            System.out.println("Total revenue: ₹" + String.format("%.2f", t.revenue()));
+                            System.out.println("Occupancy by row:");
+                            StringBuilder line = new StringBuilder();
+                            for (int r = 1; r <= t.rows(); r++) {
+                                int seats = t.occupiedInRow(r) + t.availableInRow(r);
+                                line.append(String.format("  R%2d %3d%%", r, seats == 0 ? 0 : t.occupiedInRow(r) * 100 / seats));
+                                if (r % 10 == 0 || r == t.rows()) {
+                                    System.out.println(line);
+                                    line.setLength(0);
+                                }
+                            }
+                            BookingLog.IntervalCounts recent = t.salesLastMinutes(15);
+                            System.out.println("Last 15 minutes:");
+                            DateTimeFormatter hm = DateTimeFormatter.ofPattern("HH:mm");
+                            for (int i = 0; i < recent.booked.length; i++) {
+                                if (recent.booked[i] == 0 && recent.cancelled[i] == 0) continue;
+                                System.out.println("  " + recent.intervalStart(i).format(hm) + "  booked " + recent.booked[i]
+                                        + " (₹" + String.format("%.2f", recent.bookedPaise[i] / 100.0) + "), cancelled " + recent.cancelled[i]);
+                            }
+                        });
+                    } catch (IOException e) { System.out.println("Error loading show: " + e.getMessage()); }
+                }
+                case 0 -> {
+                    running = false;
+                    try { registry.close(); }
+                    catch (IOException e) { System.out.println("Error saving data: " + e.getMessage()); }
+                    System.out.println("Exiting...");
                 }
-                case 7 -> theater.printHistory();
-                case 8 -> { running = false; System.out.println("Exiting..."); }
                 default -> System.out.println("Invalid option. Try again.");
             }
         }
         sc.close();
     }
-}
\ No newline at end of file
+}
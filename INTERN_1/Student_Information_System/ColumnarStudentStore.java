@@ -0,0 +1,305 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Column-per-field roster for very large datasets (select with -Dsis.store=columnar).
+// Primitive fields live in parallel arrays, department and class are dictionary codes,
+// names are UTF-8 runs in one byte heap and 10-digit contacts are packed into longs,
+// so a row costs a few dozen bytes instead of a Student plus three Strings.
+// Deleting moves the last row into the hole (swap-remove), which changes roster order.
+// Each department and class code keeps the list of its rows, so filtered views cost the
+// matches, not the roster.
+// find() and the listing methods hand out detached Student copies.
+class ColumnarStudentStore implements StudentStore {
+    private static final int MAX_PACKED_DIGITS = 18;
+
+    // Interns repeated strings as small int codes; codes are never reused
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            int next = codes.size();
+            if (next == values.length) values = Arrays.copyOf(values, next * 2);
+            values[next] = value;
+            codes.put(value, next);
+            return next;
+        }
+
+        int lookup(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) { return values[code]; }
+    }
+
+    // The rows holding each code, packed into one array per code. at[row] is the row's index
+    // in its code's list, so a row leaves its list in O(1) by swapping in the list's last row.
+    private static final class CodeRows {
+        private int[][] rows = new int[16][];
+        private int[] counts = new int[16];
+        private int[] at = new int[16];
+
+        int count(int code) { return code < counts.length ? counts[code] : 0; }
+
+        int row(int code, int i) { return rows[code][i]; }
+
+        void add(int code, int row) {
+            if (code >= rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(code + 1, rows.length * 2));
+                counts = Arrays.copyOf(counts, rows.length);
+            }
+            int[] list = rows[code];
+            int n = counts[code];
+            if (list == null) list = rows[code] = new int[4];
+            else if (n == list.length) list = rows[code] = Arrays.copyOf(list, n * 2);
+            list[n] = row;
+            at[row] = n;
+            counts[code] = n + 1;
+        }
+
+        void remove(int code, int row) {
+            int i = at[row];
+            int last = rows[code][--counts[code]];
+            rows[code][i] = last;
+            at[last] = i;
+        }
+
+        // The row numbered from is now numbered to
+        void renumber(int code, int from, int to) {
+            at[to] = at[from];
+            rows[code][at[to]] = to;
+        }
+
+        void growRows(int capacity) {
+            at = Arrays.copyOf(at, capacity);
+        }
+
+        void clear() {
+            Arrays.fill(counts, 0);
+        }
+    }
+
+    private final IntIntMap slotById = new IntIntMap();
+    private final Dictionary departments = new Dictionary();
+    private final Dictionary classes = new Dictionary();
+    private final CodeRows departmentRows = new CodeRows();
+    private final CodeRows classRows = new CodeRows();
+    // contacts that are not plain digit strings, keyed by student id
+    private final IntHashMap<String> contactOverflow = new IntHashMap<>();
+
+    private int size;
+    private int[] ids = new int[16];
+    private int[] ages = new int[16];
+    private double[] gpas = new double[16];
+    private int[] deptCodes = new int[16];
+    private int[] classCodes = new int[16];
+    private int[] nameOffsets = new int[16];
+    private int[] nameLengths = new int[16];
+    private long[] contacts = new long[16];
+    private byte[] contactDigits = new byte[16];  // -1 marks an overflow contact
+
+    private byte[] nameHeap = new byte[1024];
+    private int heapUsed;
+    private int heapGarbage;  // bytes of names no longer referenced by any row
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    @Override
+    public Student find(int id) {
+        int slot = slotById.get(id);
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    @Override
+    public boolean add(Student s) {
+        if (slotById.get(s.getId()) >= 0) return false;
+        if (size == ids.length) grow();
+        int slot = size++;
+        ids[slot] = s.getId();
+        slotById.put(s.getId(), slot);
+        write(slot, s.getName(), s.getAge(), s.getStudentClass(), s.getDepartment(), s.getGpa(), s.getContact());
+        departmentRows.add(deptCodes[slot], slot);
+        classRows.add(classCodes[slot], slot);
+        return true;
+    }
+
+    @Override
+    public boolean update(int id, String name, int age, String studentClass, String department, double gpa, String contact) {
+        int slot = slotById.get(id);
+        if (slot < 0) return false;
+        heapGarbage += nameLengths[slot];
+        if (contactDigits[slot] < 0) contactOverflow.remove(id);
+        departmentRows.remove(deptCodes[slot], slot);
+        classRows.remove(classCodes[slot], slot);
+        write(slot, name, age, studentClass, department, gpa, contact);
+        departmentRows.add(deptCodes[slot], slot);
+        classRows.add(classCodes[slot], slot);
+        maybeCompactHeap();
+        return true;
+    }
+
+    @Override
+    public Student remove(int id) {
+        int slot = slotById.remove(id);
+        if (slot < 0) return null;
+        Student removed = materialize(slot);
+        heapGarbage += nameLengths[slot];
+        if (contactDigits[slot] < 0) contactOverflow.remove(id);
+        departmentRows.remove(deptCodes[slot], slot);
+        classRows.remove(classCodes[slot], slot);
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            ages[slot] = ages[last];
+            gpas[slot] = gpas[last];
+            deptCodes[slot] = deptCodes[last];
+            classCodes[slot] = classCodes[last];
+            nameOffsets[slot] = nameOffsets[last];
+            nameLengths[slot] = nameLengths[last];
+            contacts[slot] = contacts[last];
+            contactDigits[slot] = contactDigits[last];
+            slotById.put(ids[slot], slot);
+            departmentRows.renumber(deptCodes[slot], last, slot);
+            classRows.renumber(classCodes[slot], last, slot);
+        }
+        maybeCompactHeap();
+        return removed;
+    }
+
+    @Override
+    public Collection<Student> findByDepartment(String department) {
+        return matching(departmentRows, departments.lookup(department));
+    }
+
+    @Override
+    public Collection<Student> findByClass(String studentClass) {
+        return matching(classRows, classes.lookup(studentClass));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Student> action) {
+        for (int i = 0; i < size; i++) action.accept(materialize(i));
+    }
+
+    @Override
+    public void forEach(int offset, int limit, Consumer<? super Student> action) {
+        int end = (int) Math.min(size, Math.max(0, offset) + (long) Math.max(0, limit));
+        for (int i = Math.max(0, offset); i < end; i++) action.accept(materialize(i));
+    }
+
+    @Override
+    public int rowLimit() { return size; }
+
+    @Override
+    public void visitRows(int from, int to, RowVisitor visitor) {
+        for (int i = from; i < to; i++) {
+            visitor.visit(departments.decode(deptCodes[i]), classes.decode(classCodes[i]), ages[i], gpas[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        slotById.clear();
+        contactOverflow.clear();
+        departmentRows.clear();
+        classRows.clear();
+        size = 0;
+        heapUsed = 0;
+        heapGarbage = 0;
+    }
+
+    private void write(int slot, String name, int age, String studentClass, String department, double gpa, String contact) {
+        ages[slot] = age;
+        gpas[slot] = gpa;
+        deptCodes[slot] = departments.encode(department);
+        classCodes[slot] = classes.encode(studentClass);
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        nameOffsets[slot] = appendName(bytes, 0, bytes.length);
+        nameLengths[slot] = bytes.length;
+        if (isPackable(contact)) {
+            contacts[slot] = Long.parseLong(contact);
+            contactDigits[slot] = (byte) contact.length();
+        } else {
+            contacts[slot] = 0;
+            contactDigits[slot] = -1;
+            contactOverflow.put(ids[slot], contact);
+        }
+    }
+
+    private Student materialize(int slot) {
+        String name = new String(nameHeap, nameOffsets[slot], nameLengths[slot], StandardCharsets.UTF_8);
+        return new Student(ids[slot], name, ages[slot], classes.decode(classCodes[slot]),
+                departments.decode(deptCodes[slot]), gpas[slot], contact(slot));
+    }
+
+    private String contact(int slot) {
+        int digits = contactDigits[slot];
+        if (digits < 0) return contactOverflow.get(ids[slot]);
+        String packed = Long.toString(contacts[slot]);
+        // restore leading zeros dropped by the long encoding
+        return packed.length() == digits ? packed : "0".repeat(digits - packed.length()) + packed;
+    }
+
+    private Collection<Student> matching(CodeRows index, int code) {
+        if (code < 0) return Collections.emptyList();
+        int n = index.count(code);
+        List<Student> matches = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) matches.add(materialize(index.row(code, i)));
+        return matches;
+    }
+
+    private int appendName(byte[] src, int from, int len) {
+        if (heapUsed + len > nameHeap.length) {
+            long wanted = Math.max((long) nameHeap.length * 2, (long) heapUsed + len);
+            if (wanted > Integer.MAX_VALUE - 8) throw new IllegalStateException("name heap is full");
+            nameHeap = Arrays.copyOf(nameHeap, (int) wanted);
+        }
+        System.arraycopy(src, from, nameHeap, heapUsed, len);
+        int offset = heapUsed;
+        heapUsed += len;
+        return offset;
+    }
+
+    // Rewrites the name heap without dead bytes once they make up half of it
+    private void maybeCompactHeap() {
+        if (heapGarbage < (1 << 20) || heapGarbage < heapUsed / 2) return;
+        byte[] old = nameHeap;
+        nameHeap = new byte[Math.max(1024, heapUsed - heapGarbage)];
+        heapUsed = 0;
+        heapGarbage = 0;
+        for (int i = 0; i < size; i++) nameOffsets[i] = appendName(old, nameOffsets[i], nameLengths[i]);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        gpas = Arrays.copyOf(gpas, capacity);
+        deptCodes = Arrays.copyOf(deptCodes, capacity);
+        classCodes = Arrays.copyOf(classCodes, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        contacts = Arrays.copyOf(contacts, capacity);
+        contactDigits = Arrays.copyOf(contactDigits, capacity);
+        departmentRows.growRows(capacity);
+        classRows.growRows(capacity);
+    }
+
+    private static boolean isPackable(String contact) {
+        int len = contact.length();
+        if (len == 0 || len > MAX_PACKED_DIGITS) return false;
+        for (int i = 0; i < len; i++) {
+            char c = contact.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+// Releases a file mapping as soon as sis is done with it instead of whenever the buffer is
+// collected. Until then Windows refuses to replace, truncate or delete the file, so a
+// checkpoint moving a new snapshot over a mapped one would fail there.
+// The JDK has no public unmap; this is sun.misc.Unsafe.invokeCleaner, looked up reflectively
+// so sis still builds without warnings. Where it is missing the mapping is left to the GC.
+final class MappedFiles {
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private MappedFiles() {}
+
+    // buf must be the buffer FileChannel.map returned, not a slice of it, and must not be
+    // read again afterwards
+    static void unmap(MappedByteBuffer buf) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buf);
+        } catch (Throwable e) {
+            // still mapped; released when collected
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafe.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
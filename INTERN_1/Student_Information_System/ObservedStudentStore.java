@@ -0,0 +1,84 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Store decorator that tells registered listeners about every successful change, so derived
+// structures (ordered views, search indexes, statistics) stay in step with the roster
+class ObservedStudentStore implements StudentStore {
+    private final StudentStore delegate;
+    private final List<StudentListener> listeners = new CopyOnWriteArrayList<>();
+
+    ObservedStudentStore(StudentStore delegate) {
+        this.delegate = delegate;
+    }
+
+    void addListener(StudentListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public int size() { return delegate.size(); }
+
+    @Override
+    public boolean isEmpty() { return delegate.isEmpty(); }
+
+    @Override
+    public Student find(int id) { return delegate.find(id); }
+
+    @Override
+    public boolean add(Student s) {
+        if (!delegate.add(s)) return false;
+        if (!listeners.isEmpty()) {
+            Student copy = s.copy();
+            for (StudentListener l : listeners) l.added(copy);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean update(int id, String name, int age, String studentClass, String department, double gpa, String contact) {
+        Student current = delegate.find(id);
+        Student before = current == null || listeners.isEmpty() ? null : current.copy();
+        if (!delegate.update(id, name, age, studentClass, department, gpa, contact)) return false;
+        if (before != null) {
+            Student after = delegate.find(id).copy();
+            for (StudentListener l : listeners) l.updated(before, after);
+        }
+        return true;
+    }
+
+    @Override
+    public Student remove(int id) {
+        Student removed = delegate.remove(id);
+        if (removed != null && !listeners.isEmpty()) {
+            Student copy = removed.copy();
+            for (StudentListener l : listeners) l.removed(copy);
+        }
+        return removed;
+    }
+
+    @Override
+    public Collection<Student> findByDepartment(String department) { return delegate.findByDepartment(department); }
+
+    @Override
+    public Collection<Student> findByClass(String studentClass) { return delegate.findByClass(studentClass); }
+
+    @Override
+    public void forEach(Consumer<? super Student> action) { delegate.forEach(action); }
+
+    @Override
+    public void forEach(int offset, int limit, Consumer<? super Student> action) { delegate.forEach(offset, limit, action); }
+
+    @Override
+    public int rowLimit() { return delegate.rowLimit(); }
+
+    @Override
+    public void visitRows(int from, int to, RowVisitor visitor) { delegate.visitRows(from, to, visitor); }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        for (StudentListener l : listeners) l.cleared();
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Sorted multiset kept as a list of small sorted blocks. Insert and remove touch one block
+// (binary search over block tails, then within the block); positional reads walk the block
+// sizes only, so a page or a top-K read never visits the elements it skips.
+// Elements must be distinct under the comparator.
+class OrderedBlockList<E> {
+    private static final int MAX_BLOCK = 512;
+
+    private final Comparator<? super E> comparator;
+    private final ArrayList<ArrayList<E>> blocks = new ArrayList<>();
+    private int size;
+
+    OrderedBlockList(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() { return size; }
+
+    void add(E e) {
+        if (blocks.isEmpty()) blocks.add(new ArrayList<>());
+        int b = blockFor(e);
+        ArrayList<E> block = blocks.get(b);
+        int i = Collections.binarySearch(block, e, comparator);
+        block.add(i < 0 ? -i - 1 : i, e);
+        size++;
+        if (block.size() > MAX_BLOCK) {
+            ArrayList<E> upper = new ArrayList<>(block.subList(MAX_BLOCK / 2, block.size()));
+            block.subList(MAX_BLOCK / 2, block.size()).clear();
+            blocks.add(b + 1, upper);
+        }
+    }
+
+    boolean remove(E e) {
+        if (blocks.isEmpty()) return false;
+        int b = blockFor(e);
+        ArrayList<E> block = blocks.get(b);
+        int i = Collections.binarySearch(block, e, comparator);
+        if (i < 0) return false;
+        block.remove(i);
+        size--;
+        if (block.isEmpty() && blocks.size() > 1) blocks.remove(b);
+        return true;
+    }
+
+    // Element at 0-based rank
+    E get(int rank) {
+        if (rank < 0 || rank >= size) throw new IndexOutOfBoundsException("rank " + rank + ", size " + size);
+        for (ArrayList<E> block : blocks) {
+            if (rank < block.size()) return block.get(rank);
+            rank -= block.size();
+        }
+        throw new IllegalStateException();
+    }
+
+    // Visits up to limit elements starting at 0-based rank from
+    void forRange(int from, int limit, Consumer<? super E> action) {
+        if (from < 0 || limit <= 0) return;
+        int skip = from;
+        int b = 0;
+        while (b < blocks.size() && skip >= blocks.get(b).size()) skip -= blocks.get(b++).size();
+        for (; b < blocks.size() && limit > 0; b++, skip = 0) {
+            ArrayList<E> block = blocks.get(b);
+            for (int i = skip; i < block.size() && limit > 0; i++, limit--) action.accept(block.get(i));
+        }
+    }
+
+    // Visits elements >= from in order until action returns false
+    void forEachFrom(E from, Predicate<? super E> action) {
+        if (blocks.isEmpty()) return;
+        int b = blockFor(from);
+        ArrayList<E> first = blocks.get(b);
+        int i = Collections.binarySearch(first, from, comparator);
+        for (i = i < 0 ? -i - 1 : i; b < blocks.size(); b++, i = 0) {
+            ArrayList<E> block = blocks.get(b);
+            for (; i < block.size(); i++) {
+                if (!action.test(block.get(i))) return;
+            }
+        }
+    }
+
+    // Replaces the contents with already sorted elements
+    void load(List<E> sorted) {
+        blocks.clear();
+        for (int i = 0; i < sorted.size(); i += MAX_BLOCK / 2) {
+            blocks.add(new ArrayList<>(sorted.subList(i, Math.min(sorted.size(), i + MAX_BLOCK / 2))));
+        }
+        size = sorted.size();
+    }
+
+    void clear() {
+        blocks.clear();
+        size = 0;
+    }
+
+    // First block whose last element is >= e, or the last block
+    private int blockFor(E e) {
+        int lo = 0, hi = blocks.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            ArrayList<E> block = blocks.get(mid);
+            if (block.isEmpty() || comparator.compare(block.get(block.size() - 1), e) >= 0) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.*;
+
+// Count/mean/min/max per group, kept current on every roster change so a summary costs
+// O(groups) instead of a scan. Removing a group's current min or max leaves the bound
+// unknown; the group is marked stale and the next summary of that grouping rescans once.
+class RunningStudentStats implements StudentListener {
+    private static final class Running {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean stale;
+
+        void add(double gpa) {
+            count++;
+            sum += gpa;
+            if (gpa < min) min = gpa;
+            if (gpa > max) max = gpa;
+        }
+    }
+
+    private final StudentStore students;
+    private final EnumMap<StudentStats.GroupBy, Map<String, Running>> groupings =
+            new EnumMap<>(StudentStats.GroupBy.class);
+
+    RunningStudentStats(StudentStore students) {
+        this.students = students;
+        for (StudentStats.GroupBy groupBy : StudentStats.GroupBy.values()) rebuild(groupBy);
+    }
+
+    List<StudentStats.Group> summary(StudentStats.GroupBy groupBy) {
+        Map<String, Running> groups = groupings.get(groupBy);
+        for (Running r : groups.values()) {
+            if (r.stale) {
+                rebuild(groupBy);
+                groups = groupings.get(groupBy);
+                break;
+            }
+        }
+        List<StudentStats.Group> result = new ArrayList<>(groups.size());
+        groups.forEach((key, r) -> result.add(new StudentStats.Group(key, r.count, r.sum / r.count, r.min, r.max,
+                Double.NaN, Double.NaN, Double.NaN)));
+        result.sort(Comparator.comparing(g -> g.key));
+        return result;
+    }
+
+    @Override
+    public void added(Student s) {
+        for (StudentStats.GroupBy groupBy : StudentStats.GroupBy.values()) {
+            groupings.get(groupBy).computeIfAbsent(key(groupBy, s), k -> new Running()).add(s.getGpa());
+        }
+    }
+
+    @Override
+    public void updated(Student before, Student after) {
+        removed(before);
+        added(after);
+    }
+
+    @Override
+    public void removed(Student s) {
+        double gpa = s.getGpa();
+        for (StudentStats.GroupBy groupBy : StudentStats.GroupBy.values()) {
+            Map<String, Running> groups = groupings.get(groupBy);
+            String key = key(groupBy, s);
+            Running r = groups.get(key);
+            if (r == null) continue;
+            if (--r.count == 0) {
+                groups.remove(key);
+                continue;
+            }
+            r.sum -= gpa;
+            if (gpa <= r.min || gpa >= r.max) r.stale = true;
+        }
+    }
+
+    @Override
+    public void cleared() {
+        for (Map<String, Running> groups : groupings.values()) groups.clear();
+    }
+
+    private void rebuild(StudentStats.GroupBy groupBy) {
+        Map<String, Running> groups = new HashMap<>();
+        for (StudentStats.Group g : StudentStats.compute(students, groupBy, false)) {
+            Running r = new Running();
+            r.count = g.count;
+            r.sum = g.mean * g.count;
+            r.min = g.min;
+            r.max = g.max;
+            groups.put(g.key, r);
+        }
+        groupings.put(groupBy, groups);
+    }
+
+    private static String key(StudentStats.GroupBy groupBy, Student s) {
+        return StudentStats.key(groupBy, s.getDepartment(), s.getStudentClass(), s.getAge());
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.Serializable;
+
+// Student class
+class Student implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int id;
+    private String name;
+    private int age;
+    private String studentClass;
+    private String department;
+    private double gpa;
+    private String contact;
+
+    public Student(int id, String name, int age, String studentClass, String department, double gpa, String contact) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.studentClass = studentClass;
+        this.department = department;
+        this.gpa = gpa;
+        this.contact = contact;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public int getAge() { return age; }
+    public String getStudentClass() { return studentClass; }
+    public String getDepartment() { return department; }
+    public double getGpa() { return gpa; }
+    public String getContact() { return contact; }
+
+    // Setters
+    public void setName(String name) { this.name = name; }
+    public void setAge(int age) { this.age = age; }
+    public void setStudentClass(String studentClass) { this.studentClass = studentClass; }
+    public void setDepartment(String department) { this.department = department; }
+    public void setGpa(double gpa) { this.gpa = gpa; }
+    public void setContact(String contact) { this.contact = contact; }
+
+    @Override
+    public String toString() {
+        return String.format("%-5d %-15s %-5d %-10s %-10s %-5.2f %-15s",
+                id, name, age, studentClass, department, gpa, contact);
+    }
+
+    public Student copy() {
+        return new Student(id, name, age, studentClass, department, gpa, contact);
+    }
+
+    public String toCSV() {
+        return id + "," + name + "," + age + "," + studentClass + "," + department + "," + gpa + "," + contact;
+    }
+}
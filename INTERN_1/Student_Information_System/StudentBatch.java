@@ -0,0 +1,127 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Headless command runner for scripted roster changes (sis --batch [file]).
+// Input, one command per line (blank lines and lines starting with '#' are ignored):
+//   add,<id>,<name>,<age>,<class>,<department>,<gpa>,<contact>
+//   update,<id>,<name>,<age>,<class>,<department>,<gpa>,<contact>
+//   delete,<id>
+// Output, one result per command, written once the batch holding it is durable:
+//   <line>,<command>,<id>,OK
+//   <line>,<command>,<id>,ERROR,<reason>
+// A field holding a comma, quote or line break is put in quotes with its quotes doubled, as
+// in RFC 4180, so messages such as "expected 8 fields, found 3" stay one field.
+class StudentBatch {
+    static final int BATCH_SIZE = 4096;
+
+    private final StudentStore students;
+    private final StudentJournal journal;
+    private final String[] fields = new String[8];
+
+    int ok;
+    int failed;
+
+    StudentBatch(StudentStore students, StudentJournal journal) {
+        this.students = students;
+        this.journal = journal;
+    }
+
+    // Applies every command from in, syncing the journal once per BATCH_SIZE commands
+    void run(BufferedReader in, Writer out) throws IOException {
+        List<String> results = new ArrayList<>(BATCH_SIZE);
+        long lastSeq = 0;
+        int lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            String result;
+            try {
+                long seq = apply(line);
+                if (seq > 0) lastSeq = seq;
+                result = lineNo + "," + csv(fields[0]) + "," + csv(fields[1]) + ",OK";
+                ok++;
+            } catch (IllegalArgumentException e) {
+                result = lineNo + "," + csv(fields[0]) + "," + (fields[1] == null ? "" : csv(fields[1])) + ",ERROR,"
+                        + csv(e.getMessage());
+                failed++;
+            }
+            results.add(result);
+            if (results.size() == BATCH_SIZE) {
+                flush(results, lastSeq, out);
+            }
+        }
+        flush(results, lastSeq, out);
+    }
+
+    private void flush(List<String> results, long lastSeq, Writer out) throws IOException {
+        journal.awaitDurable(lastSeq);
+        for (String r : results) {
+            out.write(r);
+            out.write('\n');
+        }
+        out.flush();
+        results.clear();
+    }
+
+    // Validates and applies one command; returns its journal sequence number
+    private long apply(String line) throws IOException {
+        int n = split(line);
+        String command = fields[0];
+        switch (command) {
+            case "add", "update" -> {
+                if (n != 8) throw new IllegalArgumentException("expected 8 fields, found " + n);
+                int id = StudentValidation.parseInt(fields[1], "ID");
+                String name = fields[2];
+                int age = StudentValidation.parseInt(fields[3], "age");
+                String studentClass = fields[4];
+                String department = fields[5];
+                if (!StudentValidation.isLetters(department)) throw new IllegalArgumentException("department must be letters only");
+                double gpa = StudentValidation.parseGpa(fields[6]);
+                String contact = fields[7];
+                if (!StudentValidation.isTenDigits(contact)) throw new IllegalArgumentException("contact must be exactly 10 digits");
+                if (command.equals("add")) {
+                    Student s = new Student(id, name, age, studentClass, department, gpa, contact);
+                    if (!students.add(s)) throw new IllegalArgumentException("ID already exists");
+                    return journal.logAdd(s);
+                }
+                if (!students.update(id, name, age, studentClass, department, gpa, contact)) {
+                    throw new IllegalArgumentException("student not found");
+                }
+                return journal.logUpdate(students.find(id));
+            }
+            case "delete" -> {
+                if (n != 2) throw new IllegalArgumentException("expected 2 fields, found " + n);
+                int id = StudentValidation.parseInt(fields[1], "ID");
+                if (students.remove(id) == null) throw new IllegalArgumentException("student not found");
+                return journal.logDelete(id);
+            }
+            default -> throw new IllegalArgumentException("unknown command");
+        }
+    }
+
+    private static String csv(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+
+    // Splits on commas into fields (filling at most fields.length); returns the total field count
+    private int split(String line) {
+        Arrays.fill(fields, null);
+        int n = 1;
+        for (int i = line.indexOf(','); i >= 0; i = line.indexOf(',', i + 1)) n++;
+        int start = 0;
+        for (int f = 0; f < Math.min(n, fields.length); f++) {
+            int comma = line.indexOf(',', start);
+            int end = comma < 0 ? line.length() : comma;
+            fields[f] = line.substring(start, end);
+            start = end + 1;
+        }
+        return n;
+    }
+}
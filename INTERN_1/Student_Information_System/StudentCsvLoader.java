@@ -0,0 +1,304 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Bulk loader for students.csv. The file is memory-mapped, cut into newline-aligned chunks
+// and the chunks are parsed in parallel on a fork-join pool with a byte-level field scanner
+// (no regex, no split, no String[] per row). Malformed rows are reported, not dropped silently.
+class StudentCsvLoader {
+    private static final int FIELDS = 7;
+    private static final long CHUNK_BYTES = 8L << 20;
+    static final int MAX_ERROR_SAMPLES = 20;
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    // Parsed rows in file order plus a per-row error summary
+    static final class Result {
+        final List<Student> students;
+        final int[] lines;  // line in the file of each of students
+        final int errorCount;
+        final List<String> errorSamples;
+        final long bytes;
+
+        Result(List<Student> students, int[] lines, int errorCount, List<String> errorSamples, long bytes) {
+            this.students = students;
+            this.lines = lines;
+            this.errorCount = errorCount;
+            this.errorSamples = errorSamples;
+            this.bytes = bytes;
+        }
+    }
+
+    private StudentCsvLoader() {}
+
+    static Result load(Path file) throws IOException {
+        return load(file, ForkJoinPool.commonPool());
+    }
+
+    static Result load(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long[] bounds = chunkBounds(ch, size, skipHeader(ch, size));
+            List<ChunkTask> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) tasks.add(new ChunkTask(ch, bounds[i], bounds[i + 1]));
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+
+            int total = 0;
+            for (ChunkTask t : tasks) {
+                if (t.failure != null) throw t.failure;
+                total += t.count;
+            }
+            List<Student> students = new ArrayList<>(total);
+            int[] lines = new int[total];
+            List<String> samples = new ArrayList<>();
+            int errors = 0;
+            int lineBase = 2; // line 1 is the header
+            for (ChunkTask t : tasks) {
+                for (int i = 0; i < t.count; i++) {
+                    lines[students.size()] = lineBase + t.rowLines[i];
+                    students.add(t.rows[i]);
+                }
+                for (int i = 0; i < t.errorCount; i++) {
+                    if (samples.size() < MAX_ERROR_SAMPLES) {
+                        samples.add("line " + (lineBase + t.errorLines[i]) + ": " + t.errorMessages.get(i));
+                    }
+                }
+                errors += t.errorCount;
+                lineBase += t.lines;
+            }
+            return new Result(students, lines, errors, samples, size);
+        }
+    }
+
+    // Offset just past the header line
+    private static long skipHeader(FileChannel ch, long size) throws IOException {
+        return size == 0 ? 0 : nextLineStart(ch, 0, size);
+    }
+
+    // Chunk start offsets, each moved forward to the beginning of a line, plus a final end offset
+    private static long[] chunkBounds(FileChannel ch, long size, long dataStart) throws IOException {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        long target = Math.max(1L << 20, Math.min(CHUNK_BYTES, (size - dataStart) / (parallelism * 4L) + 1));
+        List<Long> starts = new ArrayList<>();
+        long pos = dataStart;
+        while (pos < size) {
+            starts.add(pos);
+            pos = pos + target >= size ? size : nextLineStart(ch, pos + target, size);
+        }
+        long[] bounds = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) bounds[i] = starts.get(i);
+        bounds[starts.size()] = size;
+        return bounds;
+    }
+
+    // Offset after the first '\n' at or beyond from (or size if there is none)
+    private static long nextLineStart(FileChannel ch, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = from;
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    // Parses the lines in [start, end) of the mapped file
+    private static final class ChunkTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel ch;
+        private final long start, end;
+        private final int[] fieldStart = new int[FIELDS];
+        private final int[] fieldEnd = new int[FIELDS];
+        private byte[] scratch = new byte[64];
+        // department and class repeat across rows, so equal byte runs share one String
+        private final String[] dict = new String[256];
+        private final byte[][] dictBytes = new byte[256][];
+
+        Student[] rows = new Student[1024];
+        int[] rowLines = new int[1024];
+        int count;
+        int lines;
+        int[] errorLines = new int[8];
+        List<String> errorMessages = new ArrayList<>();
+        int errorCount;
+        IOException failure;
+
+        ChunkTask(FileChannel ch, long start, long end) {
+            this.ch = ch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Void compute() {
+            MappedByteBuffer buf;
+            try {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                failure = e;
+                return null;
+            }
+            int limit = buf.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buf.get(contentEnd - 1) == '\r') contentEnd--;
+                if (contentEnd > lineStart) parseLine(buf, lineStart, contentEnd);
+                lines++;
+                lineStart = lineEnd + 1;
+            }
+            return null;
+        }
+
+        private void parseLine(ByteBuffer buf, int from, int to) {
+            int fields = 0;
+            int fs = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || buf.get(i) == ',') {
+                    if (fields < FIELDS) {
+                        fieldStart[fields] = fs;
+                        fieldEnd[fields] = i;
+                    }
+                    fields++;
+                    fs = i + 1;
+                }
+            }
+            if (fields != FIELDS) {
+                error("expected " + FIELDS + " fields, found " + fields);
+                return;
+            }
+            long id = parseInt(buf, fieldStart[0], fieldEnd[0]);
+            if (id == Long.MIN_VALUE) {
+                error("invalid ID '" + text(buf, 0) + "'");
+                return;
+            }
+            long age = parseInt(buf, fieldStart[2], fieldEnd[2]);
+            if (age == Long.MIN_VALUE) {
+                error("invalid age '" + text(buf, 2) + "'");
+                return;
+            }
+            double gpa = parseDouble(buf, fieldStart[5], fieldEnd[5]);
+            if (Double.isNaN(gpa)) {
+                error("invalid GPA '" + text(buf, 5) + "'");
+                return;
+            }
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+                rowLines = Arrays.copyOf(rowLines, count * 2);
+            }
+            rowLines[count] = lines;
+            rows[count++] = new Student((int) id, text(buf, 1), (int) age,
+                    dictText(buf, 3), dictText(buf, 4), gpa, text(buf, 6));
+        }
+
+        private void error(String message) {
+            if (errorCount == errorLines.length) errorLines = Arrays.copyOf(errorLines, errorCount * 2);
+            errorLines[errorCount++] = lines;
+            if (errorMessages.size() < MAX_ERROR_SAMPLES) errorMessages.add(message);
+        }
+
+        private String text(ByteBuffer buf, int field) {
+            int len = fieldEnd[field] - fieldStart[field];
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(fieldStart[field], scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        private String dictText(ByteBuffer buf, int field) {
+            int from = fieldStart[field], len = fieldEnd[field] - from;
+            int h = len;
+            for (int i = 0; i < len; i++) h = 31 * h + buf.get(from + i);
+            int slot = (h ^ (h >>> 8)) & (dict.length - 1);
+            byte[] cached = dictBytes[slot];
+            if (cached != null && cached.length == len) {
+                int i = 0;
+                while (i < len && cached[i] == buf.get(from + i)) i++;
+                if (i == len) return dict[slot];
+            }
+            byte[] bytes = new byte[len];
+            buf.get(from, bytes, 0, len);
+            dictBytes[slot] = bytes;
+            return dict[slot] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Decimal int in [from, to); Long.MIN_VALUE when malformed or out of int range
+        private static long parseInt(ByteBuffer buf, int from, int to) {
+            boolean neg = from < to && buf.get(from) == '-';
+            int i = neg ? from + 1 : from;
+            if (i == to || to - i > 10) return Long.MIN_VALUE;
+            long v = 0;
+            for (; i < to; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) return Long.MIN_VALUE;
+                v = v * 10 + d;
+            }
+            v = neg ? -v : v;
+            return v < Integer.MIN_VALUE || v > Integer.MAX_VALUE ? Long.MIN_VALUE : v;
+        }
+
+        // Plain decimals with up to 15 significant digits are exact as mantissa / 10^scale;
+        // anything else (exponents, long mantissas) goes through Double.parseDouble.
+        // Returns NaN when malformed, infinite or NaN.
+        private double parseDouble(ByteBuffer buf, int from, int to) {
+            boolean neg = from < to && buf.get(from) == '-';
+            int i = neg ? from + 1 : from;
+            long mantissa = 0;
+            int digits = 0, scale = 0;
+            boolean dot = false, sawDigit = false;
+            for (; i < to; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && !dot) {
+                    dot = true;
+                } else if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    sawDigit = true;
+                    if (mantissa != 0) digits++;
+                    if (dot) scale++;
+                    if (digits > 15 || scale >= POW10.length) return slowDouble(buf, from, to);
+                } else {
+                    return slowDouble(buf, from, to);
+                }
+            }
+            if (!sawDigit) return Double.NaN;
+            double v = mantissa / POW10[scale];
+            return neg ? -v : v;
+        }
+
+        private double slowDouble(ByteBuffer buf, int from, int to) {
+            int len = to - from;
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(from, scratch, 0, len);
+            try {
+                double v = Double.parseDouble(new String(scratch, 0, len, StandardCharsets.ISO_8859_1));
+                return Double.isFinite(v) ? v : Double.NaN;
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+}
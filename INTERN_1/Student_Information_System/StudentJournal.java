@@ -0,0 +1,198 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Append-only log of roster mutations. Each add/update/delete becomes one checksummed line:
+//   A,<id>,<name>,<age>,<class>,<department>,<gpa>,<contact>   (U for an update)
+//   D,<id>
+// with backslash, comma and line breaks in text fields escaped as \\, \c, \n and \r.
+// Records are written with group commit by GroupCommitLog. Once the log grows past the
+// roster size it is rolled aside and folded into a fresh snapshot on a background thread, so
+// persistence cost tracks the change, not the roster.
+class StudentJournal implements Closeable {
+    private static final int COMPACT_MIN_RECORDS = 10_000;
+
+    private final GroupCommitLog log;
+    private final Path snapshotFile;
+    private final StudentStore students;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "student-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object lock = new Object();
+    private boolean compacting;
+    private boolean closed;
+
+    StudentJournal(String journalFile, String snapshotFile, StudentStore students) {
+        this.log = new GroupCommitLog(Paths.get(journalFile), "student-journal-writer");
+        this.snapshotFile = Paths.get(snapshotFile);
+        this.students = students;
+    }
+
+    // Replays the rolled and live journals over the already loaded snapshot, drops a torn
+    // tail left by a crash, and starts the writer. Returns the number of records applied.
+    int recover() throws IOException {
+        boolean interruptedCompaction = log.hasRolled();
+        int applied = log.open(this::apply);
+        // a crash between rolling and snapshotting leaves the rolled file behind; fold it now
+        if (interruptedCompaction) checkpoint();
+        return applied;
+    }
+
+    long logAdd(Student s) throws IOException { return append(record('A', s)); }
+    long logUpdate(Student s) throws IOException { return append(record('U', s)); }
+    long logDelete(int id) throws IOException { return append("D," + id); }
+
+    private static String record(char kind, Student s) {
+        StringBuilder sb = new StringBuilder(64).append(kind).append(',').append(s.getId()).append(',');
+        escape(sb, s.getName()).append(',').append(s.getAge()).append(',');
+        escape(sb, s.getStudentClass()).append(',');
+        escape(sb, s.getDepartment()).append(',').append(s.getGpa()).append(',');
+        return escape(sb, s.getContact()).toString();
+    }
+
+    // Queues one record without waiting for it to reach the disk; returns its sequence number
+    private long append(String record) throws IOException {
+        long seq = log.append(record);
+        maybeCompact();
+        return seq;
+    }
+
+    // Blocks until every record up to seq has been fsynced
+    void awaitDurable(long seq) throws IOException {
+        log.awaitDurable(seq);
+    }
+
+    // Writes a full snapshot right now and empties the journal
+    void checkpoint() throws IOException {
+        List<Student> copy;
+        synchronized (lock) {
+            waitForCompaction();
+            log.roll();
+            copy = snapshotCopy();
+        }
+        writeSnapshot(copy);
+        log.deleteRolled();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            waitForCompaction();
+            closed = true;
+        }
+        compactor.shutdown();
+        log.close();
+    }
+
+    private void maybeCompact() throws IOException {
+        List<Student> copy;
+        synchronized (lock) {
+            if (compacting || closed || log.recordsSinceRoll() < Math.max(COMPACT_MIN_RECORDS, students.size())) return;
+            compacting = true;
+            try {
+                log.roll();
+            } catch (IOException e) {
+                compacting = false;
+                throw e;
+            }
+            copy = snapshotCopy();
+        }
+        compactor.execute(() -> {
+            try {
+                writeSnapshot(copy);
+                log.deleteRolled();
+            } catch (IOException e) {
+                // the rolled journal stays behind; the next roll appends to it
+                System.out.println(" Error compacting journal: " + e.getMessage());
+            } finally {
+                synchronized (lock) {
+                    compacting = false;
+                    lock.notifyAll();
+                }
+            }
+        });
+    }
+
+    private void waitForCompaction() throws IOException {
+        while (compacting) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for journal compaction");
+            }
+        }
+    }
+
+    private List<Student> snapshotCopy() {
+        List<Student> copy = new ArrayList<>(students.size());
+        students.forEach(s -> copy.add(s.copy()));
+        return copy;
+    }
+
+    private void writeSnapshot(List<Student> roster) throws IOException {
+        StudentSnapshot.write(snapshotFile, roster);
+    }
+
+    private void apply(String record) {
+        String[] data = record.split(",", -1);
+        switch (data[0]) {
+            case "A", "U" -> {
+                if (data.length != 8) throw new IllegalArgumentException("expected 8 fields, found " + data.length);
+                // upsert keeps replay idempotent when a rolled journal is already in the snapshot
+                Student s = new Student(Integer.parseInt(data[1]), unescape(data[2]), Integer.parseInt(data[3]),
+                        unescape(data[4]), unescape(data[5]), Double.parseDouble(data[6]), unescape(data[7]));
+                if (!students.update(s.getId(), s.getName(), s.getAge(), s.getStudentClass(),
+                        s.getDepartment(), s.getGpa(), s.getContact())) {
+                    students.add(s);
+                }
+            }
+            case "D" -> {
+                if (data.length != 2) throw new IllegalArgumentException("expected 2 fields, found " + data.length);
+                students.remove(Integer.parseInt(data[1]));
+            }
+            default -> throw new IllegalArgumentException("unknown record type " + data[0]);
+        }
+    }
+
+    private static StringBuilder escape(StringBuilder sb, String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case ',' -> sb.append("\\c");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    private static String unescape(String field) {
+        if (field.indexOf('\\') < 0) return field;
+        StringBuilder sb = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i == field.length()) throw new IllegalArgumentException("dangling escape");
+            switch (field.charAt(i)) {
+                case '\\' -> sb.append('\\');
+                case 'c' -> sb.append(',');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                default -> throw new IllegalArgumentException("unknown escape \\" + field.charAt(i));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,10 @@
+// Receives roster changes after they are applied. Students passed in are detached copies.
+interface StudentListener {
+    void added(Student s);
+
+    void updated(Student before, Student after);
+
+    void removed(Student s);
+
+    void cleared();
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.util.function.Consumer;
+
+// Streams students through a ListingWriter as the console table (Student.toString layout),
+// CSV (the students.csv layout, re-importable) or JSON lines
+class StudentListing implements Consumer<Student> {
+    private final ListingWriter out;
+    private final ListingWriter.Format format;
+
+    StudentListing(ListingWriter out, ListingWriter.Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    void header() {
+        switch (format) {
+            case TABLE -> out.padded("ID", 5).ch(' ').padded("Name", 15).ch(' ').padded("Age", 5).ch(' ')
+                    .padded("Class", 10).ch(' ').padded("Dept", 10).ch(' ').padded("GPA", 5).ch(' ')
+                    .padded("Contact", 15).newline()
+                    .text("----------------------------------------------------------------------").newline();
+            case CSV -> out.text("ID,Name,Age,Class,Department,GPA,Contact").newline();
+            case JSON -> { }
+        }
+    }
+
+    @Override
+    public void accept(Student s) {
+        switch (format) {
+            case TABLE -> out.padded(s.getId(), 5).ch(' ').padded(s.getName(), 15).ch(' ')
+                    .padded(s.getAge(), 5).ch(' ').padded(s.getStudentClass(), 10).ch(' ')
+                    .padded(s.getDepartment(), 10).ch(' ').padded2(s.getGpa(), 5).ch(' ')
+                    .padded(s.getContact(), 15).newline();
+            case CSV -> {
+                out.number(s.getId()).ch(',').text(s.getName()).ch(',').number(s.getAge()).ch(',')
+                        .text(s.getStudentClass()).ch(',').text(s.getDepartment()).ch(',');
+                gpa(s.getGpa());
+                out.ch(',').text(s.getContact()).newline();
+            }
+            case JSON -> {
+                out.text("{\"id\":").number(s.getId())
+                        .text(",\"name\":").quoted(s.getName())
+                        .text(",\"age\":").number(s.getAge())
+                        .text(",\"class\":").quoted(s.getStudentClass())
+                        .text(",\"department\":").quoted(s.getDepartment())
+                        .text(",\"gpa\":");
+                gpa(s.getGpa());
+                out.text(",\"contact\":").quoted(s.getContact()).ch('}').newline();
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    // Same text as Double.toString (what toCSV writes); a GPA with at most two decimals is
+    // written digit by digit instead
+    private void gpa(double gpa) {
+        long cents = Math.round(gpa * 100);
+        if (Double.compare(gpa, 0.0) < 0 || gpa >= 1e7 || cents / 100.0 != gpa) {
+            out.text(Double.toString(gpa));
+            return;
+        }
+        out.number(cents / 100).ch('.').ch((char) ('0' + cents / 10 % 10));
+        if (cents % 10 != 0) out.ch((char) ('0' + cents % 10));
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+
+// Load generator for capacity planning (sis --load [options]). Many concurrent clients add,
+// update and delete students against an in-process roster for --seconds, and the run reports
+// throughput, latency percentiles and errors per operation (see LoadStats). Changes go
+// through the same path as sis --serve: applied to the store and its name index and journaled
+// under one write lock, with the fsync awaited after releasing it so writers share commits.
+// Updates and deletes pick an ID at random from those handed out so far, so some find the
+// student already deleted and are rejected, as they would be for a real client.
+// Options:
+//   --students N   roster seeded before the run when the store starts empty (10000)
+//   --clients N    concurrent clients (1000)
+//   --seconds N    run length (10)
+//   --mix A:U:D    relative weights of adds, updates and deletes (40:40:20)
+//   --think MS     pause of a client between calls, in milliseconds (0.1)
+//   --dir D        journal to students.journal and students.snap in D, waiting for every fsync
+//                  as the program does; without it only the in-memory store is measured.
+//                  A roster already in D is loaded first.
+// -Dsis.store=columnar measures the column store, as it selects it for sis itself.
+class StudentLoad {
+    private static final Set<String> OPTIONS = Set.of("students", "clients", "seconds", "mix", "think", "dir");
+    private static final String[] FIRST_NAMES = {"Aarav", "Diya", "Ishaan", "Kavya", "Rohan", "Ananya", "Vihaan", "Meera"};
+    private static final String[] LAST_NAMES = {"Sharma", "Patel", "Iyer", "Reddy", "Singh", "Das", "Nair", "Gupta"};
+    private static final String[] CLASSES = {"FY", "SY", "TY", "BTech"};
+    private static final String[] DEPARTMENTS = {"CSE", "ECE", "MECH", "CIVIL", "IT"};
+
+    private final Map<String, String> options = new HashMap<>();
+    private final ObservedStudentStore students = new ObservedStudentStore(new TimedStudentStore(
+            "columnar".equals(System.getProperty("sis.store")) ? new ColumnarStudentStore() : new StudentRepository()));
+    private final StampedLock lock = new StampedLock();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final LoadStats add = new LoadStats("add");
+    private final LoadStats update = new LoadStats("update");
+    private final LoadStats delete = new LoadStats("delete");
+    private StudentJournal journal;  // null without --dir
+
+    StudentLoad(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i].startsWith("--") ? args[i].substring(2) : null;
+            if (key == null || !OPTIONS.contains(key)) throw new IllegalArgumentException("unknown option " + args[i]);
+            if (i + 1 == args.length) throw new IllegalArgumentException(args[i] + " needs a value");
+            options.put(key, args[++i]);
+        }
+    }
+
+    // Runs the mix and prints its report; returns the number of calls that failed
+    long run() throws IOException, InterruptedException {
+        int seed = intOption("students", 10_000), clients = intOption("clients", 1000);
+        double seconds = number("seconds", 10);
+        long think = (long) (number("think", 0.1) * 1e6);
+        int[] mix = mix(options.getOrDefault("mix", "40:40:20"));
+        open(seed);
+        System.out.printf(" Load: %d students, %d clients for %.0f s, add:update:delete %d:%d:%d, think %.1f ms%s%n",
+                students.size(), clients, seconds, mix[0], mix[1], mix[2], think / 1e6, journal == null ? "" : ", journaled");
+
+        int weights = mix[0] + mix[1] + mix[2];
+        long begin = System.nanoTime(), deadline = begin + (long) (seconds * 1e9);
+        ExecutorService pool = LoadStats.clients();
+        for (int k = 0; k < clients; k++) {
+            pool.execute(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    // besides pacing the client like a person filling in a form, the pause takes its
+                    // virtual thread off the carrier; yielding alone lets clients that never block
+                    // starve the ones woken from a lock, for seconds at a time
+                    LockSupport.parkNanos(think);
+                    int pick = rnd.nextInt(weights);
+                    if (pick < mix[0]) call(add, () -> apply(student(nextId.getAndIncrement(), rnd), true));
+                    else if (pick < mix[0] + mix[1]) call(update, () -> apply(student(anyId(rnd), rnd), false));
+                    else call(delete, () -> remove(anyId(rnd)));
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        LoadStats.report(System.out, (System.nanoTime() - begin) / 1e9, List.of(add, update, delete));
+        System.out.println(" " + students.size() + " students at the end");
+        if (journal != null) {
+            long started = System.nanoTime();
+            journal.checkpoint();
+            journal.close();
+            System.out.printf(" Final snapshot written in %.1f ms%n", (System.nanoTime() - started) / 1e6);
+        }
+        return add.errors() + update.errors() + delete.errors();
+    }
+
+    private interface Call {
+        boolean run() throws IOException;
+    }
+
+    private static void call(LoadStats stats, Call call) {
+        long started = System.nanoTime();
+        try {
+            stats.done(started, call.run());
+        } catch (IOException | RuntimeException e) {
+            stats.failed(started, e);
+        }
+    }
+
+    // An add, or an update of the student with s's ID; false if the ID is taken or missing
+    private boolean apply(Student s, boolean adding) throws IOException {
+        long seq = 0;
+        long stamp = lock.writeLock();
+        try {
+            if (adding) {
+                if (!students.add(s)) return false;
+                if (journal != null) seq = journal.logAdd(s);
+            } else {
+                if (!students.update(s.getId(), s.getName(), s.getAge(), s.getStudentClass(), s.getDepartment(),
+                        s.getGpa(), s.getContact())) return false;
+                if (journal != null) seq = journal.logUpdate(students.find(s.getId()));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (journal != null) journal.awaitDurable(seq);
+        return true;
+    }
+
+    private boolean remove(int id) throws IOException {
+        long seq = 0;
+        long stamp = lock.writeLock();
+        try {
+            if (students.remove(id) == null) return false;
+            if (journal != null) seq = journal.logDelete(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (journal != null) journal.awaitDurable(seq);
+        return true;
+    }
+
+    // Loads what --dir holds, seeds the roster if it is still empty, and starts the name index
+    private void open(int seed) throws IOException {
+        String dir = options.get("dir");
+        if (dir != null) {
+            Path d = Paths.get(dir);
+            Files.createDirectories(d);
+            Path snapshot = d.resolve("students.snap");
+            if (Files.exists(snapshot)) StudentSnapshot.read(snapshot).forEach(students::add);
+            journal = new StudentJournal(d.resolve("students.journal").toString(), snapshot.toString(), students);
+            int replayed = journal.recover();
+            System.out.println(" Journaling to " + d + (replayed > 0 ? " (recovered " + replayed + " changes)" : ""));
+        }
+        int[] maxId = {0};
+        students.forEach(s -> maxId[0] = Math.max(maxId[0], s.getId()));
+        nextId.set(maxId[0] + 1);
+        if (students.isEmpty()) {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = 0; i < seed; i++) students.add(student(nextId.getAndIncrement(), rnd));
+            if (journal != null) journal.checkpoint();
+        }
+        students.addListener(new StudentNameIndex(students));
+    }
+
+    private int anyId(ThreadLocalRandom rnd) {
+        return 1 + rnd.nextInt(nextId.get() - 1);
+    }
+
+    private static Student student(int id, ThreadLocalRandom rnd) {
+        String name = FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[rnd.nextInt(LAST_NAMES.length)];
+        double gpa = Math.round(rnd.nextDouble(5.0, 10.0) * 100) / 100.0;
+        String contact = String.valueOf(9_000_000_000L + rnd.nextLong(1_000_000_000L));
+        return new Student(id, name, 17 + rnd.nextInt(8), CLASSES[rnd.nextInt(CLASSES.length)],
+                DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)], gpa, contact);
+    }
+
+    private static int[] mix(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 3) throw new IllegalArgumentException("--mix must be add:update:delete, like 40:40:20");
+        int[] mix = new int[3];
+        for (int i = 0; i < 3; i++) {
+            mix[i] = StudentValidation.parseInt(parts[i], "--mix weight");
+            if (mix[i] < 0) throw new IllegalArgumentException("--mix weights must not be negative");
+        }
+        if (mix[0] + mix[1] + mix[2] == 0) throw new IllegalArgumentException("--mix needs a weight above 0");
+        return mix;
+    }
+
+    private int intOption(String key, int fallback) {
+        String value = options.get(key);
+        if (value == null) return fallback;
+        int n = StudentValidation.parseInt(value, "--" + key);
+        if (n < 1) throw new IllegalArgumentException("--" + key + " must be at least 1");
+        return n;
+    }
+
+    private double number(String key, double fallback) {
+        String value = options.get(key);
+        if (value == null) return fallback;
+        try {
+            double x = Double.parseDouble(value);
+            if (!(x >= 0)) throw new IllegalArgumentException("--" + key + " must not be negative");
+            return x;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + key + " must be a number");
+        }
+    }
+}
@@ -0,0 +1,387 @@
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Name search over the roster, kept current through StudentListener.
+// Type-ahead: every word of a case-folded name is an entry in a sorted list, so a prefix
+// lookup is one binary search followed by a short in-order walk.
+// Typo-tolerant: a trigram index maps each 3-character gram of the padded, folded name to the
+// document slots that contain it. A query merges its rarest posting lists into candidates, and
+// a 128-bit trigram signature per document rules out most of them before the longer lists are
+// searched, so a query's cost follows its rarest trigrams rather than its commonest.
+class StudentNameIndex implements StudentListener {
+    // Each query word tolerates one typo, plus one per this many further characters;
+    // a typo (including swapped neighbours) breaks up to four trigrams
+    private static final int CHARS_PER_TYPO = 10;
+    private static final int GRAMS_PER_TYPO = 4;
+    // Postings merged to collect candidates, rarest trigram first. The lists left out are the
+    // query's commonest trigrams: they still count towards a candidate's score, but a name that
+    // shares nothing else with the query is not a candidate. A query whose rarest trigram alone
+    // is over this (a bare common first name, say) gets prefix search on its longest word.
+    private static final int CANDIDATE_POSTINGS = 4096;
+
+    // One word of a folded name; the id breaks ties and finds the entry again
+    private static final class Entry {
+        final String word;
+        final int id;
+
+        Entry(String word, int id) {
+            this.word = word;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Entry> BY_WORD = (a, b) -> {
+        int c = a.word.compareTo(b.word);
+        return c != 0 ? c : Integer.compare(a.id, b.id);
+    };
+
+    // Document slots containing one trigram. Slots are handed out in increasing order and
+    // postings are only appended to, so every list stays sorted.
+    private static final class Postings {
+        final int gram;
+        int[] slots = new int[4];
+        int size;
+
+        Postings(int gram) {
+            this.gram = gram;
+        }
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+    }
+
+    private final OrderedBlockList<Entry> words = new OrderedBlockList<>(BY_WORD);
+
+    // Documents live in dense slots. A removed slot is only blanked (its postings go stale
+    // and are skipped); slots are compacted and postings rebuilt once half of them are dead.
+    private final IntIntMap slotById = new IntIntMap();
+    private final IntHashMap<Postings> postings = new IntHashMap<>();
+    private int[] slotIds = new int[16];
+    private String[] slotNames = new String[16];
+    private int[] slotGrams = new int[16];
+    // Two words per slot: each trigram g of the slot's name sets bit lowBit(g) of the first and
+    // highBit(g) of the second, so a name can share no query trigram with either bit clear
+    private long[] slotSignatures = new long[32];
+    private int slotCount;
+    private int deadSlots;
+
+    StudentNameIndex(StudentStore students) {
+        List<Entry> entries = new ArrayList<>(students.size() * 2);
+        students.forEach(s -> {
+            String folded = fold(s.getName());
+            forEachWord(folded, w -> entries.add(new Entry(w, s.getId())));
+            addDocument(s.getId(), folded);
+        });
+        entries.sort(BY_WORD);
+        words.load(entries);
+    }
+
+    // Visits ids of students with a name word starting with prefix, in word order, each at most once
+    void prefix(String prefix, int limit, IntConsumer action) {
+        String p = fold(prefix).trim();
+        if (p.isEmpty() || limit <= 0) return;
+        IntIntMap visited = new IntIntMap();
+        words.forEachFrom(new Entry(p, Integer.MIN_VALUE), e -> {
+            if (!e.word.startsWith(p)) return false;
+            if (visited.get(e.id) < 0) {
+                visited.put(e.id, 0);
+                action.accept(e.id);
+            }
+            return visited.size() < limit;
+        });
+    }
+
+    // Ids of up to limit students whose names best match query, best first
+    int[] fuzzy(String query, int limit) {
+        String q = fold(query).trim();
+        int[] grams = trigrams(q);
+        if (grams.length == 0 || limit <= 0) return new int[0];
+        int[] typos = new int[1];
+        forEachWord(q, w -> typos[0] += 1 + w.length() / CHARS_PER_TYPO);
+        int required = Math.max(1, grams.length - typos[0] * GRAMS_PER_TYPO);
+
+        Postings[] lists = new Postings[grams.length];
+        int m = 0;
+        for (int gram : grams) {
+            Postings p = postings.get(gram);
+            if (p != null) lists[m++] = p;
+        }
+        if (m < required) return new int[0];
+        Arrays.sort(lists, 0, m, Comparator.comparingInt(p -> p.size));
+
+        // A name sharing `required` grams appears in at least one of the rarest m - required + 1
+        // lists; as many of those as the budget allows supply the candidates
+        int mustScan = m - required + 1;
+        int scanned = 0, total = 0;
+        while (scanned < mustScan && total + lists[scanned].size <= CANDIDATE_POSTINGS) {
+            total += lists[scanned++].size;
+        }
+        if (scanned == 0) {
+            // every trigram is common, so the query is a common word or the start of one
+            int[] ids = new int[limit];
+            int[] found = new int[1];
+            prefix(longestWord(q), limit, id -> ids[found[0]++] = id);
+            return Arrays.copyOf(ids, found[0]);
+        }
+        int[] candidates = new int[total];
+        int[] seen = new int[total];
+        int n = merge(lists, scanned, candidates, seen);
+        long[] unreadLow = new long[m - scanned], unreadHigh = new long[m - scanned];
+        for (int i = scanned; i < m; i++) {
+            unreadLow[i - scanned] = lowBit(lists[i].gram);
+            unreadHigh[i - scanned] = highBit(lists[i].gram);
+        }
+
+        // A candidate's signature bounds what it can share through the unread lists. Candidates
+        // are searched for in those lists best bound first (a counting sort), so the top list
+        // fills with the real matches early and the search stops at the first bound that
+        // cannot beat it. The signatures are gathered by a bare loop of loads first, which
+        // keeps many cache misses in flight at once.
+        long[] lows = new long[n], highs = new long[n];
+        for (int c = 0; c < n; c++) {
+            lows[c] = slotSignatures[2 * candidates[c]];
+            highs[c] = slotSignatures[2 * candidates[c] + 1];
+        }
+        int[] bounds = new int[n];
+        int[] from = new int[m + 2];
+        for (int c = 0; c < n; c++) {
+            long low = lows[c], high = highs[c];
+            int bound = seen[c];
+            for (int i = 0; i < unreadLow.length; i++) {
+                if ((low & unreadLow[i]) != 0 && (high & unreadHigh[i]) != 0) bound++;
+            }
+            bounds[c] = bound;
+            from[bound]++;
+        }
+        for (int b = m - 1; b >= 0; b--) from[b] += from[b + 1];  // from[b]: candidates with bound b or more
+        int[] order = new int[from[required]];
+        for (int c = 0; c < n; c++) {
+            if (bounds[c] >= required) order[--from[bounds[c]]] = c;  // fills each bound's range from its end
+        }
+
+        int[] topSlots = new int[limit];
+        double[] topScores = new double[limit];
+        int found = 0;
+        for (int c : order) {
+            int slot = candidates[c], bound = bounds[c];
+            // a name holds at least the trigrams it shares, so no later candidate can score over this
+            if (found == limit && (double) bound / grams.length <= topScores[limit - 1]) break;
+            if (found == limit && score(Math.min(bound, slotGrams[slot]), grams.length, slotGrams[slot]) <= topScores[limit - 1]) continue;
+            if (slotNames[slot] == null) continue;
+            long low = slotSignatures[2 * slot], high = slotSignatures[2 * slot + 1];
+            int shared = seen[c];
+            for (int i = scanned; i < m; i++) {
+                Postings list = lists[i];
+                if ((low & unreadLow[i - scanned]) != 0 && (high & unreadHigh[i - scanned]) != 0
+                        && Arrays.binarySearch(list.slots, 0, list.size, slot) >= 0) shared++;
+            }
+            if (shared < required) continue;
+            double score = score(shared, grams.length, slotGrams[slot]);
+            if (found == limit && score <= topScores[limit - 1]) continue;
+            // insertion into the small best-first top list
+            int k = found < limit ? found++ : limit - 1;
+            while (k > 0 && topScores[k - 1] < score) {
+                topScores[k] = topScores[k - 1];
+                topSlots[k] = topSlots[k - 1];
+                k--;
+            }
+            topScores[k] = score;
+            topSlots[k] = slot;
+        }
+        int[] ids = new int[found];
+        for (int i = 0; i < found; i++) ids[i] = slotIds[topSlots[i]];
+        return ids;
+    }
+
+    // Shared trigrams as a fraction of the trigrams of query and name together
+    private static double score(int shared, int queryGrams, int nameGrams) {
+        return (double) shared / (queryGrams + nameGrams - shared);
+    }
+
+    // Merges the first k posting lists into ascending distinct slots, counting the lists that
+    // hold each, by merging runs in pairs until one is left; returns the number of slots
+    private static int merge(Postings[] lists, int k, int[] slots, int[] counts) {
+        int[][] runSlots = new int[k][], runCounts = new int[k][];
+        int[] runSizes = new int[k];
+        int[] ones = new int[lists[k - 1].size];  // lists are sorted by size, so this is the longest
+        Arrays.fill(ones, 1);
+        for (int i = 0; i < k; i++) {
+            runSlots[i] = lists[i].slots;
+            runCounts[i] = ones;
+            runSizes[i] = lists[i].size;
+        }
+        int runs = k;
+        while (runs > 1) {
+            int merged = 0;
+            for (int r = 0; r < runs; r += 2) {
+                if (r + 1 == runs) {
+                    runSlots[merged] = runSlots[r];
+                    runCounts[merged] = runCounts[r];
+                    runSizes[merged++] = runSizes[r];
+                    break;
+                }
+                int[] a = runSlots[r], aCounts = runCounts[r], b = runSlots[r + 1], bCounts = runCounts[r + 1];
+                int aSize = runSizes[r], bSize = runSizes[r + 1];
+                int[] out = new int[aSize + bSize], outCounts = new int[aSize + bSize];
+                int i = 0, j = 0, n = 0;
+                while (i < aSize && j < bSize) {
+                    if (a[i] < b[j]) {
+                        out[n] = a[i];
+                        outCounts[n++] = aCounts[i++];
+                    } else if (a[i] > b[j]) {
+                        out[n] = b[j];
+                        outCounts[n++] = bCounts[j++];
+                    } else {
+                        out[n] = a[i];
+                        outCounts[n++] = aCounts[i++] + bCounts[j++];
+                    }
+                }
+                for (; i < aSize; i++, n++) {
+                    out[n] = a[i];
+                    outCounts[n] = aCounts[i];
+                }
+                for (; j < bSize; j++, n++) {
+                    out[n] = b[j];
+                    outCounts[n] = bCounts[j];
+                }
+                runSlots[merged] = out;
+                runCounts[merged] = outCounts;
+                runSizes[merged++] = n;
+            }
+            runs = merged;
+        }
+        System.arraycopy(runSlots[0], 0, slots, 0, runSizes[0]);
+        System.arraycopy(runCounts[0], 0, counts, 0, runSizes[0]);
+        return runSizes[0];
+    }
+
+    private static long lowBit(int gram) {
+        return 1L << (gram * 0x9E3779B9 >>> 26);
+    }
+
+    private static long highBit(int gram) {
+        return 1L << (gram * 0x85EBCA6B >>> 26);
+    }
+
+    private static String longestWord(String folded) {
+        String[] longest = {""};
+        forEachWord(folded, w -> {
+            if (w.length() > longest[0].length()) longest[0] = w;
+        });
+        return longest[0];
+    }
+
+    @Override
+    public void added(Student s) {
+        String folded = fold(s.getName());
+        forEachWord(folded, w -> words.add(new Entry(w, s.getId())));
+        addDocument(s.getId(), folded);
+    }
+
+    @Override
+    public void updated(Student before, Student after) {
+        if (before.getName().equals(after.getName())) return;
+        removed(before);
+        added(after);
+    }
+
+    @Override
+    public void removed(Student s) {
+        forEachWord(fold(s.getName()), w -> words.remove(new Entry(w, s.getId())));
+        int slot = slotById.remove(s.getId());
+        if (slot < 0) return;
+        slotNames[slot] = null;
+        if (++deadSlots > 1024 && deadSlots > slotCount / 2) compact();
+    }
+
+    @Override
+    public void cleared() {
+        words.clear();
+        slotById.clear();
+        postings.clear();
+        Arrays.fill(slotNames, 0, slotCount, null);
+        slotCount = 0;
+        deadSlots = 0;
+    }
+
+    private void addDocument(int id, String folded) {
+        if (slotCount == slotIds.length) {
+            slotIds = Arrays.copyOf(slotIds, slotCount * 2);
+            slotNames = Arrays.copyOf(slotNames, slotCount * 2);
+            slotGrams = Arrays.copyOf(slotGrams, slotCount * 2);
+            slotSignatures = Arrays.copyOf(slotSignatures, slotCount * 4);
+        }
+        int slot = slotCount++;
+        int[] grams = trigrams(folded);
+        slotIds[slot] = id;
+        slotNames[slot] = folded;
+        slotGrams[slot] = grams.length;
+        slotById.put(id, slot);
+        long low = 0, high = 0;
+        for (int gram : grams) {
+            postings.computeIfAbsent(gram, Postings::new).add(slot);
+            low |= lowBit(gram);
+            high |= highBit(gram);
+        }
+        slotSignatures[2 * slot] = low;
+        slotSignatures[2 * slot + 1] = high;
+    }
+
+    // Drops dead slots and rebuilds every posting list against the new numbering
+    private void compact() {
+        int[] ids = slotIds;
+        String[] names = slotNames;
+        int count = slotCount;
+        slotIds = new int[Math.max(16, ids.length / 2)];
+        slotNames = new String[slotIds.length];
+        slotGrams = new int[slotIds.length];
+        slotSignatures = new long[2 * slotIds.length];
+        slotCount = 0;
+        deadSlots = 0;
+        slotById.clear();
+        postings.clear();
+        for (int i = 0; i < count; i++) {
+            if (names[i] != null) addDocument(ids[i], names[i]);
+        }
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static void forEachWord(String folded, Consumer<String> action) {
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean space = i == folded.length() || Character.isWhitespace(folded.charAt(i));
+            if (!space && start < 0) start = i;
+            else if (space && start >= 0) {
+                action.accept(folded.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    // Distinct trigrams of "  " + text + " ", sorted. Characters are packed 10 bits each, so
+    // non-Latin names may share a code; ranking treats such collisions as matches.
+    private static int[] trigrams(String text) {
+        if (text.isEmpty()) return new int[0];
+        int n = text.length() + 1;
+        int[] grams = new int[n];
+        int c0 = ' ', c1 = ' ';
+        for (int i = 0; i < n; i++) {
+            int c2 = i < text.length() ? text.charAt(i) : ' ';
+            grams[i] = (c0 & 0x3FF) << 20 | (c1 & 0x3FF) << 10 | (c2 & 0x3FF);
+            c0 = c1;
+            c1 = c2;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) grams[distinct++] = grams[i];
+        }
+        return distinct == n ? grams : Arrays.copyOf(grams, distinct);
+    }
+}
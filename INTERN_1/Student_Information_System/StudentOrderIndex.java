@@ -0,0 +1,119 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// Maintained orderings of the roster (by name, by GPA descending, by class, and by GPA within
+// each department). Changes are applied incrementally through StudentListener, so listing a
+// page or the top K never re-sorts or reorders the roster itself.
+class StudentOrderIndex implements StudentListener {
+    enum Order { NAME, GPA, CLASS }
+
+    // Sort key of one student in one ordering; the id breaks ties and finds the entry again
+    private static final class Entry {
+        final String text;
+        final double gpa;
+        final int id;
+
+        Entry(String text, double gpa, int id) {
+            this.text = text;
+            this.gpa = gpa;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Entry> BY_TEXT = (a, b) -> {
+        int c = a.text.compareTo(b.text);
+        return c != 0 ? c : Integer.compare(a.id, b.id);
+    };
+    private static final Comparator<Entry> BY_GPA_DESC = (a, b) -> {
+        int c = Double.compare(b.gpa, a.gpa);
+        return c != 0 ? c : Integer.compare(a.id, b.id);
+    };
+
+    private final OrderedBlockList<Entry> byName = new OrderedBlockList<>(BY_TEXT);
+    private final OrderedBlockList<Entry> byGpa = new OrderedBlockList<>(BY_GPA_DESC);
+    private final OrderedBlockList<Entry> byClass = new OrderedBlockList<>(BY_TEXT);
+    private final Map<String, OrderedBlockList<Entry>> gpaByDepartment = new HashMap<>();
+
+    // Builds every ordering with one sort each from the current roster
+    StudentOrderIndex(StudentStore students) {
+        List<Entry> names = new ArrayList<>(students.size());
+        List<Entry> gpas = new ArrayList<>(students.size());
+        List<Entry> classes = new ArrayList<>(students.size());
+        Map<String, List<Entry>> departments = new HashMap<>();
+        students.forEach(s -> {
+            names.add(new Entry(s.getName(), 0, s.getId()));
+            Entry gpa = new Entry(null, s.getGpa(), s.getId());
+            gpas.add(gpa);
+            classes.add(new Entry(s.getStudentClass(), 0, s.getId()));
+            departments.computeIfAbsent(s.getDepartment(), k -> new ArrayList<>()).add(gpa);
+        });
+        names.sort(BY_TEXT);
+        gpas.sort(BY_GPA_DESC);
+        classes.sort(BY_TEXT);
+        byName.load(names);
+        byGpa.load(gpas);
+        byClass.load(classes);
+        departments.forEach((dept, entries) -> {
+            entries.sort(BY_GPA_DESC);
+            OrderedBlockList<Entry> view = new OrderedBlockList<>(BY_GPA_DESC);
+            view.load(entries);
+            gpaByDepartment.put(dept, view);
+        });
+    }
+
+    int size() { return byName.size(); }
+
+    // Visits the ids at 0-based ranks [from, from + limit) of the given ordering
+    void forRange(Order order, int from, int limit, IntConsumer action) {
+        view(order).forRange(from, limit, e -> action.accept(e.id));
+    }
+
+    // Visits the ids of the k highest GPAs in a department, best first
+    void topGpa(String department, int k, IntConsumer action) {
+        OrderedBlockList<Entry> view = gpaByDepartment.get(department);
+        if (view != null) view.forRange(0, k, e -> action.accept(e.id));
+    }
+
+    @Override
+    public void added(Student s) {
+        byName.add(new Entry(s.getName(), 0, s.getId()));
+        byGpa.add(new Entry(null, s.getGpa(), s.getId()));
+        byClass.add(new Entry(s.getStudentClass(), 0, s.getId()));
+        gpaByDepartment.computeIfAbsent(s.getDepartment(), k -> new OrderedBlockList<>(BY_GPA_DESC))
+                .add(new Entry(null, s.getGpa(), s.getId()));
+    }
+
+    @Override
+    public void updated(Student before, Student after) {
+        removed(before);
+        added(after);
+    }
+
+    @Override
+    public void removed(Student s) {
+        byName.remove(new Entry(s.getName(), 0, s.getId()));
+        byGpa.remove(new Entry(null, s.getGpa(), s.getId()));
+        byClass.remove(new Entry(s.getStudentClass(), 0, s.getId()));
+        OrderedBlockList<Entry> view = gpaByDepartment.get(s.getDepartment());
+        if (view != null) {
+            view.remove(new Entry(null, s.getGpa(), s.getId()));
+            if (view.size() == 0) gpaByDepartment.remove(s.getDepartment());
+        }
+    }
+
+    @Override
+    public void cleared() {
+        byName.clear();
+        byGpa.clear();
+        byClass.clear();
+        gpaByDepartment.clear();
+    }
+
+    private OrderedBlockList<Entry> view(Order order) {
+        return switch (order) {
+            case NAME -> byName;
+            case GPA -> byGpa;
+            case CLASS -> byClass;
+        };
+    }
+}
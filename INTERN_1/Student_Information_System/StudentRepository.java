@@ -0,0 +1,216 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+// Indexed student store: primary index on id, secondary indexes on department and class.
+// Roster order is kept in a dense array so viewing still lists students in insertion order.
+// The indexes hold primitive ids and positions, not objects: a student costs its Student
+// plus about 30 bytes of index.
+class StudentRepository implements StudentStore {
+    // The ids of the students sharing one department or class, packed into an array. Removing
+    // one moves the bucket's last id into the hole, so filtered views keep insertion order
+    // only until the first removal from that bucket.
+    private static final class Bucket {
+        int[] ids = new int[4];
+        int size;
+
+        // Returns the id's index in the bucket
+        int add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size] = id;
+            return size++;
+        }
+
+        // Returns the id now at index, which moved there from the end (if any id did)
+        int removeAt(int index) {
+            int last = ids[--size];
+            ids[index] = last;
+            return last;
+        }
+    }
+
+    private final IntIntMap positionById = new IntIntMap();
+    private final Map<String, Bucket> byDepartment = new HashMap<>();
+    private final Map<String, Bucket> byClass = new HashMap<>();
+
+    private Student[] order = new Student[16];
+    // where the student at each roster position sits in its department and class buckets
+    private int[] departmentSlots = new int[16];
+    private int[] classSlots = new int[16];
+    private int orderSize;  // used slots, including holes left by deletes
+
+    @Override
+    public int size() { return positionById.size(); }
+
+    @Override
+    public boolean isEmpty() { return positionById.size() == 0; }
+
+    @Override
+    public Student find(int id) {
+        int position = positionById.get(id);
+        return position < 0 ? null : order[position];
+    }
+
+    @Override
+    public boolean add(Student s) {
+        if (positionById.get(s.getId()) >= 0) return false;
+        if (orderSize == order.length) growOrCompact();
+        int position = orderSize++;
+        order[position] = s;
+        departmentSlots[position] = index(byDepartment, s.getDepartment(), s.getId());
+        classSlots[position] = index(byClass, s.getStudentClass(), s.getId());
+        positionById.put(s.getId(), position);
+        return true;
+    }
+
+    // Applies new field values and moves the student between secondary index buckets
+    @Override
+    public boolean update(int id, String name, int age, String studentClass, String department, double gpa, String contact) {
+        int position = positionById.get(id);
+        if (position < 0) return false;
+        Student s = order[position];
+        unindex(byDepartment, s.getDepartment(), departmentSlots[position], departmentSlots);
+        unindex(byClass, s.getStudentClass(), classSlots[position], classSlots);
+        s.setName(name);
+        s.setAge(age);
+        s.setStudentClass(studentClass);
+        s.setDepartment(department);
+        s.setGpa(gpa);
+        s.setContact(contact);
+        departmentSlots[position] = index(byDepartment, s.getDepartment(), id);
+        classSlots[position] = index(byClass, s.getStudentClass(), id);
+        return true;
+    }
+
+    @Override
+    public Student remove(int id) {
+        int position = positionById.remove(id);
+        if (position < 0) return null;
+        Student s = order[position];
+        order[position] = null;
+        unindex(byDepartment, s.getDepartment(), departmentSlots[position], departmentSlots);
+        unindex(byClass, s.getStudentClass(), classSlots[position], classSlots);
+        return s;
+    }
+
+    @Override
+    public Collection<Student> findByDepartment(String department) {
+        return view(byDepartment.get(department));
+    }
+
+    @Override
+    public Collection<Student> findByClass(String studentClass) {
+        return view(byClass.get(studentClass));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Student> action) {
+        for (int i = 0; i < orderSize; i++) {
+            if (order[i] != null) action.accept(order[i]);
+        }
+    }
+
+    @Override
+    public void forEach(int offset, int limit, Consumer<? super Student> action) {
+        // positions count live students only, so the skip has to step over holes
+        int i = 0;
+        for (int skipped = 0; i < orderSize && skipped < offset; i++) {
+            if (order[i] != null) skipped++;
+        }
+        for (; i < orderSize && limit > 0; i++) {
+            if (order[i] != null) {
+                action.accept(order[i]);
+                limit--;
+            }
+        }
+    }
+
+    @Override
+    public int rowLimit() { return orderSize; }
+
+    @Override
+    public void visitRows(int from, int to, RowVisitor visitor) {
+        for (int i = from; i < to; i++) {
+            Student s = order[i];
+            if (s != null) visitor.visit(s.getDepartment(), s.getStudentClass(), s.getAge(), s.getGpa());
+        }
+    }
+
+    @Override
+    public void clear() {
+        positionById.clear();
+        byDepartment.clear();
+        byClass.clear();
+        Arrays.fill(order, 0, orderSize, null);
+        orderSize = 0;
+    }
+
+    private void growOrCompact() {
+        // reclaim holes first when at least half the array is deleted entries
+        if (orderSize - positionById.size() >= orderSize / 2 && orderSize > 0) compact();
+        if (orderSize == order.length) {
+            order = Arrays.copyOf(order, order.length * 2);
+            departmentSlots = Arrays.copyOf(departmentSlots, order.length);
+            classSlots = Arrays.copyOf(classSlots, order.length);
+        }
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < orderSize; i++) {
+            Student s = order[i];
+            if (s == null) continue;
+            if (live != i) {
+                order[live] = s;
+                departmentSlots[live] = departmentSlots[i];
+                classSlots[live] = classSlots[i];
+                positionById.put(s.getId(), live);
+            }
+            live++;
+        }
+        Arrays.fill(order, live, orderSize, null);
+        orderSize = live;
+    }
+
+    // A live, read-only view of a bucket's students
+    private Collection<Student> view(Bucket bucket) {
+        if (bucket == null) return Collections.emptyList();
+        return new AbstractCollection<>() {
+            @Override
+            public int size() {
+                return bucket.size;
+            }
+
+            @Override
+            public Iterator<Student> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < bucket.size;
+                    }
+
+                    @Override
+                    public Student next() {
+                        if (next >= bucket.size) throw new NoSuchElementException();
+                        return find(bucket.ids[next++]);
+                    }
+                };
+            }
+        };
+    }
+
+    // Returns the id's index in the key's bucket
+    private static int index(Map<String, Bucket> index, String key, int id) {
+        return index.computeIfAbsent(key, k -> new Bucket()).add(id);
+    }
+
+    // Removes the id at slot from the key's bucket and records where the id moved into the
+    // hole now sits
+    private void unindex(Map<String, Bucket> index, String key, int slot, int[] slots) {
+        Bucket bucket = index.get(key);
+        int moved = bucket.removeAt(slot);
+        if (bucket.size == 0) index.remove(key);
+        else if (slot < bucket.size) slots[positionById.get(moved)] = slot;
+    }
+}
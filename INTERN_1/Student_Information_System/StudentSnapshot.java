@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// Versioned binary roster snapshot (students.snap). All values are little-endian:
+//   header   magic "SISB", version, rows, department count, class count, pad, dict bytes, heap bytes
+//   columns  int id[rows], int age[rows], double gpa[rows], int dept[rows], int class[rows], int heapOffset[rows]
+//   dicts    department then class strings, each an int length + UTF-8 bytes
+//   heap     per row: name then contact, each an int length + UTF-8 bytes
+//   trailer  CRC32 of everything above
+// Loading maps the file and reads the primitive columns in place; only strings are decoded.
+// Both directions unmap the file when done (see MappedFiles).
+class StudentSnapshot {
+    static final int MAGIC = 0x42534953; // "SISB"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+
+    private StudentSnapshot() {}
+
+    static void write(Path file, List<Student> roster) throws IOException {
+        int rows = roster.size();
+        Map<String, Integer> departments = new LinkedHashMap<>();
+        Map<String, Integer> classes = new LinkedHashMap<>();
+        int[] deptCodes = new int[rows];
+        int[] classCodes = new int[rows];
+        byte[][] names = new byte[rows][];
+        byte[][] contacts = new byte[rows][];
+        long heapBytes = 0;
+        for (int i = 0; i < rows; i++) {
+            Student s = roster.get(i);
+            deptCodes[i] = departments.computeIfAbsent(s.getDepartment(), k -> departments.size());
+            classCodes[i] = classes.computeIfAbsent(s.getStudentClass(), k -> classes.size());
+            names[i] = s.getName().getBytes(StandardCharsets.UTF_8);
+            contacts[i] = s.getContact().getBytes(StandardCharsets.UTF_8);
+            heapBytes += 8 + names[i].length + contacts[i].length;
+        }
+        List<byte[]> dict = new ArrayList<>();
+        long dictBytes = 0;
+        for (String d : departments.keySet()) dict.add(d.getBytes(StandardCharsets.UTF_8));
+        for (String c : classes.keySet()) dict.add(c.getBytes(StandardCharsets.UTF_8));
+        for (byte[] b : dict) dictBytes += 4 + b.length;
+
+        long columnsBytes = (long) rows * (4 + 4 + 8 + 4 + 4 + 4);
+        long total = HEADER_BYTES + columnsBytes + dictBytes + heapBytes + 4;
+        if (total > Integer.MAX_VALUE) throw new IOException("roster too large for snapshot version " + VERSION);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, total);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(rows)
+               .putInt(departments.size()).putInt(classes.size()).putInt(0)
+               .putLong(dictBytes).putLong(heapBytes);
+            for (Student s : roster) buf.putInt(s.getId());
+            for (Student s : roster) buf.putInt(s.getAge());
+            for (Student s : roster) buf.putDouble(s.getGpa());
+            for (int code : deptCodes) buf.putInt(code);
+            for (int code : classCodes) buf.putInt(code);
+            int offset = 0;
+            for (int i = 0; i < rows; i++) {
+                buf.putInt(offset);
+                offset += 8 + names[i].length + contacts[i].length;
+            }
+            for (byte[] b : dict) buf.putInt(b.length).put(b);
+            for (int i = 0; i < rows; i++) {
+                buf.putInt(names[i].length).put(names[i]);
+                buf.putInt(contacts[i].length).put(contacts[i]);
+            }
+            buf.putInt((int) crc(buf, total - 4));
+            buf.force();
+            MappedFiles.unmap(buf);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the new name must be on disk before the caller deletes the journal it replaces
+        GroupCommitLog.syncDirectory(file);
+    }
+
+    static List<Student> read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES + 4) throw new IOException(file + " is truncated");
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                return read(file, buf, size);
+            } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+                throw new IOException(file + " is corrupt: " + e, e);
+            } finally {
+                MappedFiles.unmap(buf);
+            }
+        }
+    }
+
+    // Decodes every student; nothing returned refers to buf, which is unmapped afterwards
+    private static List<Student> read(Path file, MappedByteBuffer buf, long size) throws IOException {
+        if (buf.getInt(0) != MAGIC) throw new IOException(file + " is not a student snapshot");
+        int version = buf.getInt(4);
+        if (version != VERSION) throw new IOException("unsupported snapshot version " + version);
+        if ((int) crc(buf, size - 4) != buf.getInt((int) (size - 4))) {
+            throw new IOException(file + " failed its checksum");
+        }
+
+        int rows = buf.getInt(8);
+        int deptCount = buf.getInt(12);
+        int classCount = buf.getInt(16);
+        long dictBytes = buf.getLong(24);
+        int idAt = HEADER_BYTES;
+        int ageAt = idAt + 4 * rows;
+        int gpaAt = ageAt + 4 * rows;
+        int deptAt = gpaAt + 8 * rows;
+        int classAt = deptAt + 4 * rows;
+        int offsetAt = classAt + 4 * rows;
+        int dictAt = offsetAt + 4 * rows;
+        int heapAt = (int) (dictAt + dictBytes);
+
+        byte[] scratch = new byte[256];
+        String[] departments = new String[deptCount];
+        String[] classes = new String[classCount];
+        int pos = dictAt;
+        for (int i = 0; i < deptCount + classCount; i++) {
+            int len = buf.getInt(pos);
+            scratch = fit(scratch, len);
+            buf.get(pos + 4, scratch, 0, len);
+            String value = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            if (i < deptCount) departments[i] = value; else classes[i - deptCount] = value;
+            pos += 4 + len;
+        }
+
+        List<Student> roster = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int at = heapAt + buf.getInt(offsetAt + 4 * i);
+            int nameLen = buf.getInt(at);
+            scratch = fit(scratch, nameLen);
+            buf.get(at + 4, scratch, 0, nameLen);
+            String name = new String(scratch, 0, nameLen, StandardCharsets.UTF_8);
+            at += 4 + nameLen;
+            int contactLen = buf.getInt(at);
+            scratch = fit(scratch, contactLen);
+            buf.get(at + 4, scratch, 0, contactLen);
+            String contact = new String(scratch, 0, contactLen, StandardCharsets.UTF_8);
+            roster.add(new Student(buf.getInt(idAt + 4 * i), name, buf.getInt(ageAt + 4 * i),
+                    classes[buf.getInt(classAt + 4 * i)], departments[buf.getInt(deptAt + 4 * i)],
+                    buf.getDouble(gpaAt + 8 * i), contact));
+        }
+        return roster;
+    }
+
+    private static byte[] fit(byte[] scratch, int len) {
+        return len <= scratch.length ? scratch : new byte[Math.max(len, scratch.length * 2)];
+    }
+
+    private static long crc(MappedByteBuffer buf, long length) {
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(0, (int) length));
+        return crc.getValue();
+    }
+}
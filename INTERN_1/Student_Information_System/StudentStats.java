@@ -0,0 +1,157 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// GPA statistics grouped by department, class or age band, computed as a parallel reduction:
+// the row range is split across a fork-join pool, each leaf fills primitive accumulators
+// (count/sum/min/max and, when percentiles are wanted, a double[] of values) and the
+// partial results are merged pairwise.
+class StudentStats {
+    private static final int LEAF_ROWS = 1 << 16;
+    static final int AGE_BAND = 5;
+
+    enum GroupBy { DEPARTMENT, CLASS, AGE_BAND }
+
+    // Aggregates for one group
+    static final class Group {
+        final String key;
+        final long count;
+        final double mean, min, max;
+        final double p50, p90, p99;  // NaN when percentiles were not requested
+
+        Group(String key, long count, double mean, double min, double max, double p50, double p90, double p99) {
+            this.key = key;
+            this.count = count;
+            this.mean = mean;
+            this.min = min;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+    }
+
+    private StudentStats() {}
+
+    static List<Group> compute(StudentStore students, GroupBy groupBy, boolean percentiles) {
+        Map<String, Accumulator> merged = ForkJoinPool.commonPool()
+                .invoke(new Reduce(students, groupBy, percentiles, 0, students.rowLimit()));
+        List<Group> groups = new ArrayList<>(merged.size());
+        for (Map.Entry<String, Accumulator> e : merged.entrySet()) {
+            Accumulator a = e.getValue();
+            double p50 = Double.NaN, p90 = Double.NaN, p99 = Double.NaN;
+            if (percentiles) {
+                double[] values = Arrays.copyOf(a.values, (int) a.count);
+                Arrays.parallelSort(values);
+                p50 = percentile(values, 50);
+                p90 = percentile(values, 90);
+                p99 = percentile(values, 99);
+            }
+            groups.add(new Group(e.getKey(), a.count, a.sum / a.count, a.min, a.max, p50, p90, p99));
+        }
+        groups.sort(Comparator.comparing(g -> g.key));
+        return groups;
+    }
+
+    static String key(GroupBy groupBy, String department, String studentClass, int age) {
+        return switch (groupBy) {
+            case DEPARTMENT -> department;
+            case CLASS -> studentClass;
+            case AGE_BAND -> ageBand(age);
+        };
+    }
+
+    private static final String[] BANDS = new String[40];
+
+    // "15-19" style label; the common range is cached so scans don't build strings per row
+    static String ageBand(int age) {
+        int band = Math.floorDiv(age, AGE_BAND);
+        if (band >= 0 && band < BANDS.length) {
+            String label = BANDS[band];
+            if (label == null) BANDS[band] = label = (band * AGE_BAND) + "-" + (band * AGE_BAND + AGE_BAND - 1);
+            return label;
+        }
+        return (band * AGE_BAND) + "-" + (band * AGE_BAND + AGE_BAND - 1);
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static double percentile(double[] sorted, int p) {
+        if (sorted.length == 0) return Double.NaN;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static final class Accumulator {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double[] values;
+
+        Accumulator(boolean keepValues) {
+            if (keepValues) values = new double[16];
+        }
+
+        void add(double gpa) {
+            if (values != null) {
+                if (count == values.length) values = Arrays.copyOf(values, values.length * 2);
+                values[(int) count] = gpa;
+            }
+            count++;
+            sum += gpa;
+            if (gpa < min) min = gpa;
+            if (gpa > max) max = gpa;
+        }
+
+        void merge(Accumulator other) {
+            if (values != null) {
+                int total = (int) (count + other.count);
+                if (total > values.length) values = Arrays.copyOf(values, Math.max(total, values.length * 2));
+                System.arraycopy(other.values, 0, values, (int) count, (int) other.count);
+            }
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    private static final class Reduce extends RecursiveTask<Map<String, Accumulator>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient StudentStore students;
+        private final GroupBy groupBy;
+        private final boolean percentiles;
+        private final int from, to;
+
+        Reduce(StudentStore students, GroupBy groupBy, boolean percentiles, int from, int to) {
+            this.students = students;
+            this.groupBy = groupBy;
+            this.percentiles = percentiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, Accumulator> compute() {
+            if (to - from <= LEAF_ROWS) {
+                Map<String, Accumulator> groups = new HashMap<>();
+                students.visitRows(from, to, (department, studentClass, age, gpa) ->
+                        groups.computeIfAbsent(key(groupBy, department, studentClass, age),
+                                k -> new Accumulator(percentiles)).add(gpa));
+                return groups;
+            }
+            int mid = (from + to) >>> 1;
+            Reduce left = new Reduce(students, groupBy, percentiles, from, mid);
+            left.fork();
+            Map<String, Accumulator> right = new Reduce(students, groupBy, percentiles, mid, to).compute();
+            Map<String, Accumulator> merged = left.join();
+            right.forEach((k, acc) -> {
+                Accumulator mine = merged.get(k);
+                if (mine == null) merged.put(k, acc);
+                else mine.merge(acc);
+            });
+            return merged;
+        }
+    }
+}
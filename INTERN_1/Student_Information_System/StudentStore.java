@@ -0,0 +1,42 @@
+import java.util.Collection;
+import java.util.function.Consumer;
+
+// Operations sis needs from a roster, independent of how the rows are laid out in memory
+interface StudentStore {
+    // Allocation-free view of the fields analytics group and aggregate on
+    interface RowVisitor {
+        void visit(String department, String studentClass, int age, double gpa);
+    }
+
+    int size();
+
+    boolean isEmpty();
+
+    // The student with this id, or null. Stores may hand out a detached copy.
+    Student find(int id);
+
+    // Adds a student; returns false if the id is already taken
+    boolean add(Student s);
+
+    boolean update(int id, String name, int age, String studentClass, String department, double gpa, String contact);
+
+    Student remove(int id);
+
+    Collection<Student> findByDepartment(String department);
+
+    Collection<Student> findByClass(String studentClass);
+
+    // Visits students in roster order
+    void forEach(Consumer<? super Student> action);
+
+    // Visits at most limit students in roster order, starting at 0-based position offset
+    void forEach(int offset, int limit, Consumer<? super Student> action);
+
+    // Upper bound of internal row positions; [0, rowLimit()) may be split across threads
+    int rowLimit();
+
+    // Visits the live rows at positions [from, to) without materializing students
+    void visitRows(int from, int to, RowVisitor visitor);
+
+    void clear();
+}
@@ -0,0 +1,48 @@
+// Field checks shared by the menu, batch mode and the service; hand-rolled so no regex is compiled per call
+final class StudentValidation {
+    static final double MAX_GPA = 10.0;
+
+    private StudentValidation() {}
+
+    // Same rule as "[a-zA-Z]+"
+    static boolean isLetters(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) return false;
+        }
+        return true;
+    }
+
+    // Same rule as "\\d{10}"
+    static boolean isTenDigits(String s) {
+        if (s.length() != 10) return false;
+        for (int i = 0; i < 10; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    // Integer.parseInt with a message naming the field, for per-command error reports
+    static int parseInt(String s, String what) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + what + " '" + s + "'");
+        }
+    }
+
+    // A GPA on the 10-point scale. NaN and the infinities are refused too: they would be
+    // journaled as they are, then printed as bare NaN in JSON and rejected by the CSV import.
+    static double parseGpa(String s) {
+        double gpa;
+        try {
+            gpa = Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid GPA '" + s + "'");
+        }
+        if (!(gpa >= 0 && gpa <= MAX_GPA)) throw new IllegalArgumentException("GPA must be from 0 to 10, not '" + s + "'");
+        return gpa;
+    }
+}
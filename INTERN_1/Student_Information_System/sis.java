@@ -1,65 +1,57 @@
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.regex.*;
 
-// Student class
-class Student implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private int id;
-    private String name;
-    private int age;
-    private String studentClass;
-    private String department;
-    private double gpa;
-    private String contact;
-
-    public Student(int id, String name, int age, String studentClass, String department, double gpa, String contact) {
-        this.id = id;
-        this.name = name;
-        this.age = age;
-        this.studentClass = studentClass;
-        this.department = department;
-        this.gpa = gpa;
-        this.contact = contact;
-    }
-
-    // Getters
-    public int getId() { return id; }
-    public String getName() { return name; }
-    public int getAge() { return age; }
-    public String getStudentClass() { return studentClass; }
-    public String getDepartment() { return department; }
-    public double getGpa() { return gpa; }
-    public String getContact() { return contact; }
-
-    // Setters
-    public void setName(String name) { this.name = name; }
-    public void setAge(int age) { this.age = age; }
-    public void setStudentClass(String studentClass) { this.studentClass = studentClass; }
-    public void setDepartment(String department) { this.department = department; }
-    public void setGpa(double gpa) { this.gpa = gpa; }
-    public void setContact(String contact) { this.contact = contact; }
-
-    @Override
-    public String toString() {
-        return String.format("%-5d %-15s %-5d %-10s %-10s %-5.2f %-15s",
-                id, name, age, studentClass, department, gpa, contact);
-    }
-
-    public String toCSV() {
-        return id + "," + name + "," + age + "," + studentClass + "," + department + "," + gpa + "," + contact;
-    }
-}
-
 //  Main class name changed to match file name "sis.java"
 public class sis {
-    private static List<Student> students = new ArrayList<>();
+    // -Dsis.store=columnar switches to the compact column layout for very large rosters
+    private static final ObservedStudentStore students = new ObservedStudentStore(new TimedStudentStore(
+            "columnar".equals(System.getProperty("sis.store")) ? new ColumnarStudentStore() : new StudentRepository()));
+    private static final Metrics.Timer LOAD_STUDENTS = Metrics.timer("loadStudents");
+    private static final Metrics.Timer SAVE_STUDENTS = Metrics.timer("saveStudents");
+    private static final Metrics.Timer FIND = Metrics.timer("find");
     private static final String FILE_NAME = "students.csv";
+    private static final String SNAPSHOT_FILE = "students.snap";
+    private static final String JOURNAL_FILE = "students.journal";
+    private static final StudentJournal journal = new StudentJournal(JOURNAL_FILE, SNAPSHOT_FILE, students);
     private static final Scanner sc = new Scanner(System.in);
+    private static final ListingWriter console = new ListingWriter(System.out);
+    private static StudentOrderIndex orders;
+    private static RunningStudentStats stats;
+    private static StudentNameIndex names;
 
     public static void main(String[] args) {
+        Metrics.publish("sis");
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // status messages go to stderr so stdout carries only the result log
+            System.setOut(System.err);
+            loadStudents();
+            runBatch(args.length > 1 ? args[1] : "-");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            loadStudents();
+            runService(args.length > 1 ? args[1] : "8080");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            runLoad(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--list")) {
+            System.setOut(System.err);
+            loadStudents();
+            runList(args);
+            return;
+        }
         loadStudents();
+        orders = new StudentOrderIndex(students);
+        students.addListener(orders);
+        stats = new RunningStudentStats(students);
+        students.addListener(stats);
+        names = new StudentNameIndex(students);
+        students.addListener(names);
         int choice;
         do {
             System.out.println("\n===== STUDENT INFORMATION SYSTEM =====");
@@ -69,6 +61,11 @@ public class sis {
             System.out.println("4. Update Student");
             System.out.println("5. Delete Student");
             System.out.println("6. Sort Students");
+            System.out.println("7. Filter Students by Department/Class");
+            System.out.println("8. Export Students to CSV");
+            System.out.println("9. Import Students from CSV");
+            System.out.println("10. Student Statistics");
+            System.out.println("11. Dump Metrics to File");
             System.out.println("0. Exit");
             System.out.print("Enter your choice: ");
 
@@ -86,9 +83,17 @@ public class sis {
                 case 4 -> updateStudent();
                 case 5 -> deleteStudent();
                 case 6 -> sortStudents();
+                case 7 -> filterStudents();
+                case 8 -> exportStudents();
+                case 9 -> importStudents();
+                case 10 -> showStatistics();
+                case 11 -> dumpMetrics();
                 case 0 -> {
-                    saveStudents();
-                    System.out.println(" Data saved successfully! Exiting... Goodbye!");
+                    if (saveStudents()) {
+                        System.out.println(" Data saved successfully! Exiting... Goodbye!");
+                    } else {
+                        System.out.println(" Exiting; unsaved changes stay in the journal until the next start.");
+                    }
                 }
                 default -> System.out.println("Invalid choice! Try again.");
             }
@@ -118,23 +123,36 @@ public class sis {
         while (true) {
             System.out.print("Enter Department (letters only): ");
             department = sc.nextLine();
-            if (department.matches("[a-zA-Z]+")) break;
+            if (StudentValidation.isLetters(department)) break;
             System.out.println(" Invalid department! Only letters are allowed.");
         }
 
-        System.out.print("Enter GPA: ");
-        double gpa = sc.nextDouble();
-        sc.nextLine();
+        double gpa;
+        while (true) {
+            System.out.print("Enter GPA: ");
+            try {
+                gpa = StudentValidation.parseGpa(sc.nextLine().trim());
+                break;
+            } catch (IllegalArgumentException e) {
+                System.out.println(" Invalid GPA! Enter a number from 0 to 10.");
+            }
+        }
 
         String contact;
         while (true) {
             System.out.print("Enter 10-digit Contact Number: ");
             contact = sc.nextLine();
-            if (contact.matches("\\d{10}")) break;
+            if (StudentValidation.isTenDigits(contact)) break;
             System.out.println(" Invalid number! Must be exactly 10 digits.");
         }
 
-        students.add(new Student(id, name, age, studentClass, department, gpa, contact));
+        Student s = new Student(id, name, age, studentClass, department, gpa, contact);
+        students.add(s);
+        try {
+            journal.awaitDurable(journal.logAdd(s));
+        } catch (IOException e) {
+            System.out.println(" Error saving data: " + e.getMessage());
+        }
         System.out.println(" Student added successfully!");
     }
 
@@ -143,26 +161,65 @@ public class sis {
             System.out.println("No students found!");
             return;
         }
-        System.out.printf("%-5s %-15s %-5s %-10s %-10s %-5s %-15s\n",
-                "ID", "Name", "Age", "Class", "Dept", "GPA", "Contact");
-        System.out.println("----------------------------------------------------------------------");
-        for (Student s : students) {
-            System.out.println(s);
+        System.out.print("Output format - table, csv or json (Enter for table): ");
+        ListingWriter.Format format = ListingWriter.parseFormat(sc.nextLine());
+        if (format == null) {
+            System.out.println("Invalid format!");
+            return;
+        }
+        System.out.print("Start at position (Enter for 1): ");
+        String from = sc.nextLine().trim();
+        System.out.print("How many students (Enter for all): ");
+        String count = sc.nextLine().trim();
+        try {
+            int offset = from.isEmpty() ? 0 : Integer.parseInt(from) - 1;
+            int limit = count.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(count);
+            StudentListing listing = new StudentListing(console, format);
+            listing.header();
+            students.forEach(offset, limit, listing);
+            listing.flush();
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number!");
+        } catch (IOException e) {
+            System.out.println(" Error writing listing: " + e.getMessage());
         }
     }
 
     private static void searchStudent() {
-        System.out.print("Enter Student ID to search: ");
-        int id = sc.nextInt();
+        System.out.println("1. Search by ID");
+        System.out.println("2. Search by Name (starts with)");
+        System.out.println("3. Search by Name (closest matches)");
+        System.out.print("Choose search option: ");
+        int option = sc.nextInt();
         sc.nextLine();
-        Student s = findStudentById(id);
-        if (s != null) {
-            System.out.printf("%-5s %-15s %-5s %-10s %-10s %-5s %-15s\n",
-                    "ID", "Name", "Age", "Class", "Dept", "GPA", "Contact");
-            System.out.println("----------------------------------------------------------------------");
-            System.out.println(s);
-        } else {
-            System.out.println("Student not found!");
+
+        switch (option) {
+            case 1 -> {
+                System.out.print("Enter Student ID to search: ");
+                int id = sc.nextInt();
+                sc.nextLine();
+                Student s = findStudentById(id);
+                if (s != null) {
+                    printHeader();
+                    System.out.println(s);
+                } else {
+                    System.out.println("Student not found!");
+                }
+            }
+            case 2, 3 -> {
+                System.out.print("Enter Name: ");
+                String query = sc.nextLine();
+                List<Student> matches = new ArrayList<>();
+                if (option == 2) names.prefix(query, 20, id -> matches.add(students.find(id)));
+                else for (int id : names.fuzzy(query, 10)) matches.add(students.find(id));
+                if (matches.isEmpty()) {
+                    System.out.println("Student not found!");
+                    return;
+                }
+                printHeader();
+                matches.forEach(System.out::println);
+            }
+            default -> System.out.println("Invalid option!");
         }
     }
 
@@ -190,29 +247,35 @@ public class sis {
         while (true) {
             System.out.print("Enter new Department (" + s.getDepartment() + "): ");
             department = sc.nextLine();
-            if (department.matches("[a-zA-Z]+")) break;
+            if (StudentValidation.isLetters(department)) break;
             System.out.println(" Invalid department! Only letters are allowed.");
         }
 
-        System.out.print("Enter new GPA (" + s.getGpa() + "): ");
-        double gpa = sc.nextDouble();
-        sc.nextLine();
+        double gpa;
+        while (true) {
+            System.out.print("Enter new GPA (" + s.getGpa() + "): ");
+            try {
+                gpa = StudentValidation.parseGpa(sc.nextLine().trim());
+                break;
+            } catch (IllegalArgumentException e) {
+                System.out.println(" Invalid GPA! Enter a number from 0 to 10.");
+            }
+        }
 
         String contact;
         while (true) {
             System.out.print("Enter new 10-digit Contact (" + s.getContact() + "): ");
             contact = sc.nextLine();
-            if (contact.matches("\\d{10}")) break;
+            if (StudentValidation.isTenDigits(contact)) break;
             System.out.println(" Invalid number! Must be exactly 10 digits.");
         }
 
-        s.setName(name);
-        s.setAge(age);
-        s.setStudentClass(studentClass);
-        s.setDepartment(department);
-        s.setGpa(gpa);
-        s.setContact(contact);
-
+        students.update(id, name, age, studentClass, department, gpa, contact);
+        try {
+            journal.awaitDurable(journal.logUpdate(students.find(id)));
+        } catch (IOException e) {
+            System.out.println(" Error saving data: " + e.getMessage());
+        }
         System.out.println(" Student updated successfully!");
     }
 
@@ -220,76 +283,350 @@ public class sis {
         System.out.print("Enter Student ID to delete: ");
         int id = sc.nextInt();
         sc.nextLine();
-        Student s = findStudentById(id);
-        if (s == null) {
+        if (students.remove(id) == null) {
             System.out.println("Student not found!");
             return;
         }
-        students.remove(s);
+        try {
+            journal.awaitDurable(journal.logDelete(id));
+        } catch (IOException e) {
+            System.out.println(" Error saving data: " + e.getMessage());
+        }
         System.out.println(" Student deleted successfully!");
     }
 
+    // Lists a page of a maintained ordering; the roster itself is never re-sorted
     private static void sortStudents() {
         System.out.println("1. Sort by Name");
         System.out.println("2. Sort by GPA");
         System.out.println("3. Sort by Class");
+        System.out.println("4. Top GPAs in a Department");
         System.out.print("Choose sorting option: ");
         int option = sc.nextInt();
         sc.nextLine();
 
+        StudentOrderIndex.Order order;
         switch (option) {
-            case 1 -> students.sort(Comparator.comparing(Student::getName));
-            case 2 -> students.sort(Comparator.comparingDouble(Student::getGpa).reversed());
-            case 3 -> students.sort(Comparator.comparing(Student::getStudentClass));
+            case 1 -> order = StudentOrderIndex.Order.NAME;
+            case 2 -> order = StudentOrderIndex.Order.GPA;
+            case 3 -> order = StudentOrderIndex.Order.CLASS;
+            case 4 -> {
+                System.out.print("Enter Department: ");
+                String department = sc.nextLine();
+                System.out.print("How many students: ");
+                int k = sc.nextInt();
+                sc.nextLine();
+                printHeader();
+                orders.topGpa(department, k, id -> System.out.println(students.find(id)));
+                return;
+            }
             default -> {
                 System.out.println("Invalid option!");
                 return;
             }
         }
-        System.out.println(" Students sorted successfully!");
-        viewStudents();
+        if (orders.size() == 0) {
+            System.out.println("No students found!");
+            return;
+        }
+        System.out.print("Start at position (1-" + orders.size() + "): ");
+        int from = sc.nextInt();
+        System.out.print("How many students: ");
+        int count = sc.nextInt();
+        sc.nextLine();
+        StudentListing listing = new StudentListing(console, ListingWriter.Format.TABLE);
+        listing.header();
+        orders.forRange(order, from - 1, count, id -> listing.accept(students.find(id)));
+        try {
+            listing.flush();
+        } catch (IOException e) {
+            System.out.println(" Error writing listing: " + e.getMessage());
+        }
+    }
+
+    private static void filterStudents() {
+        System.out.println("1. Filter by Department");
+        System.out.println("2. Filter by Class");
+        System.out.print("Choose filter option: ");
+        int option = sc.nextInt();
+        sc.nextLine();
+
+        Collection<Student> matches;
+        switch (option) {
+            case 1 -> {
+                System.out.print("Enter Department: ");
+                matches = students.findByDepartment(sc.nextLine());
+            }
+            case 2 -> {
+                System.out.print("Enter Class: ");
+                matches = students.findByClass(sc.nextLine());
+            }
+            default -> {
+                System.out.println("Invalid option!");
+                return;
+            }
+        }
+        if (matches.isEmpty()) {
+            System.out.println("No students found!");
+            return;
+        }
+        printHeader();
+        for (Student s : matches) {
+            System.out.println(s);
+        }
+    }
+
+    private static void showStatistics() {
+        System.out.println("1. Group by Department");
+        System.out.println("2. Group by Class");
+        System.out.println("3. Group by Age Band");
+        System.out.print("Choose grouping option: ");
+        int option = sc.nextInt();
+        sc.nextLine();
+
+        StudentStats.GroupBy groupBy;
+        switch (option) {
+            case 1 -> groupBy = StudentStats.GroupBy.DEPARTMENT;
+            case 2 -> groupBy = StudentStats.GroupBy.CLASS;
+            case 3 -> groupBy = StudentStats.GroupBy.AGE_BAND;
+            default -> {
+                System.out.println("Invalid option!");
+                return;
+            }
+        }
+        System.out.print("Include GPA percentiles? (y/n): ");
+        boolean percentiles = sc.nextLine().trim().equalsIgnoreCase("y");
+        // the running summary is O(groups); percentiles need a scan over every student
+        List<StudentStats.Group> groups = percentiles
+                ? StudentStats.compute(students, groupBy, true)
+                : stats.summary(groupBy);
+        if (groups.isEmpty()) {
+            System.out.println("No students found!");
+            return;
+        }
+        System.out.printf("%-12s %8s %6s %6s %6s", "Group", "Count", "Mean", "Min", "Max");
+        if (percentiles) System.out.printf(" %6s %6s %6s", "P50", "P90", "P99");
+        System.out.println();
+        System.out.println("----------------------------------------------------------------------");
+        for (StudentStats.Group g : groups) {
+            System.out.printf("%-12s %8d %6.2f %6.2f %6.2f", g.key, g.count, g.mean, g.min, g.max);
+            if (percentiles) System.out.printf(" %6.2f %6.2f %6.2f", g.p50, g.p90, g.p99);
+            System.out.println();
+        }
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-5s %-15s %-5s %-10s %-10s %-5s %-15s\n",
+                "ID", "Name", "Age", "Class", "Dept", "GPA", "Contact");
+        System.out.println("----------------------------------------------------------------------");
     }
 
     private static Student findStudentById(int id) {
-        for (Student s : students) {
-            if (s.getId() == id) return s;
+        return Metrics.time(FIND, () -> students.find(id));
+    }
+
+    // sis --list [table|csv|json] [offset] [limit]: streams the roster to stdout; offset is 0-based
+    private static void runList(String[] args) {
+        ListingWriter.Format format = args.length > 1 ? ListingWriter.parseFormat(args[1]) : ListingWriter.Format.TABLE;
+        if (format == null) {
+            System.err.println(" Unknown format '" + args[1] + "' (use table, csv or json)");
+            System.exit(1);
+        }
+        try {
+            int offset = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+            int limit = args.length > 3 ? Integer.parseInt(args[3]) : Integer.MAX_VALUE;
+            StudentListing listing = new StudentListing(new ListingWriter(new FileOutputStream(FileDescriptor.out)), format);
+            listing.header();
+            students.forEach(offset, limit, listing);
+            listing.flush();
+            journal.close();
+        } catch (NumberFormatException e) {
+            System.err.println(" Invalid offset or limit: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println(" Error writing listing: " + e.getMessage());
+            System.exit(1);
         }
-        return null;
     }
 
-    private static void saveStudents() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FILE_NAME))) {
-            pw.println("ID,Name,Age,Class,Department,GPA,Contact");
-            for (Student s : students) {
-                pw.println(s.toCSV());
+    // sis --serve [port]: answers HTTP requests on localhost until stopped; see StudentService
+    private static void runService(String port) {
+        names = new StudentNameIndex(students);
+        students.addListener(names);
+        StudentService service = new StudentService(students, journal, names);
+        try {
+            service.start(Integer.parseInt(port));
+        } catch (NumberFormatException e) {
+            System.out.println(" Invalid port '" + port + "'");
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println(" Error starting service: " + e.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                boolean[] saved = new boolean[1];
+                service.stop(() -> saved[0] = saveStudents());
+                System.out.println(saved[0] ? " Data saved successfully! Service stopped."
+                        : " Service stopped; unsaved changes stay in the journal until the next start.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }));
+        System.out.println(" Serving " + students.size() + " students on http://localhost:" + service.port()
+                + "/students (Ctrl+C to stop)");
+    }
+
+    // Applies a command file ("-" for stdin) and writes one result line per command to stdout
+    private static void runBatch(String fileName) {
+        StudentBatch batch = new StudentBatch(students, journal);
+        long start = System.nanoTime();
+        try (BufferedReader in = fileName.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in), 1 << 16)
+                     : new BufferedReader(new FileReader(fileName), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out)), 1 << 16)) {
+            batch.run(in, out);
+            journal.close();
+        } catch (IOException e) {
+            System.err.println(" Error in batch: " + e.getMessage());
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf(" Batch done: %d ok, %d failed in %.2f s (%.0f ops/s)%n",
+                batch.ok, batch.failed, seconds, (batch.ok + batch.failed) / seconds);
+        if (batch.failed > 0) System.exit(2);
+    }
+
+    // sis --load [options]: drives a separate in-process roster with concurrent clients and
+    // reports throughput and latency; see StudentLoad
+    private static void runLoad(String[] args) {
+        try {
+            if (new StudentLoad(args).run() > 0) System.exit(2);
+        } catch (IllegalArgumentException e) {
+            System.out.println(" Invalid load test: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println(" Error in load test: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Folds the journal into a fresh binary snapshot before exiting; false if that failed
+    private static boolean saveStudents() {
+        long started = SAVE_STUDENTS.start();
+        try {
+            journal.checkpoint();
+            journal.close();
+            return true;
         } catch (IOException e) {
             System.out.println(" Error saving data: " + e.getMessage());
+            return false;
+        } finally {
+            SAVE_STUDENTS.stop(started);
         }
     }
 
+    // Loads the binary snapshot (or students.csv on first run), then replays journaled changes
     private static void loadStudents() {
-        File file = new File(FILE_NAME);
-        if (!file.exists()) return;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_NAME))) {
-            br.readLine(); // skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length == 7) {
-                    students.add(new Student(
-                            Integer.parseInt(data[0]),
-                            data[1],
-                            Integer.parseInt(data[2]),
-                            data[3],
-                            data[4],
-                            Double.parseDouble(data[5]),
-                            data[6]
-                    ));
+        Metrics.time(LOAD_STUDENTS, sis::readStudents);
+    }
+
+    private static void readStudents() {
+        if (new File(SNAPSHOT_FILE).exists()) {
+            try {
+                StudentSnapshot.read(Paths.get(SNAPSHOT_FILE)).forEach(students::add);
+                System.out.println(" Data loaded successfully!");
+            } catch (IOException e) {
+                // going on with an empty roster would checkpoint it over the only good copy
+                System.out.println(" Error loading data: " + e.getMessage());
+                System.out.println(" " + SNAPSHOT_FILE + " was left as it is; restore it from a backup or move it aside"
+                        + " to start again from " + FILE_NAME + ".");
+                System.exit(1);
+            }
+        } else if (new File(FILE_NAME).exists()) {
+            readCsv(FILE_NAME, false);
+        }
+        try {
+            int replayed = journal.recover();
+            if (replayed > 0) System.out.println(" Recovered " + replayed + " unsaved change(s) from journal.");
+        } catch (IOException e) {
+            // as above: the journal holds changes no snapshot has, so it must not be rolled over
+            System.out.println(" Error loading data: " + e.getMessage());
+            System.out.println(" " + JOURNAL_FILE + " was left as it is; repair it or move it aside to start from "
+                    + SNAPSHOT_FILE + " alone.");
+            System.exit(1);
+        }
+    }
+
+    private static void dumpMetrics() {
+        System.out.print("Enter file name (metrics.csv): ");
+        String fileName = sc.nextLine().trim();
+        if (fileName.isEmpty()) fileName = "metrics.csv";
+        try {
+            Metrics.dump(Paths.get(fileName));
+            System.out.println(" Metrics written to " + fileName);
+        } catch (IOException e) {
+            System.out.println(" Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    private static void exportStudents() {
+        System.out.print("Enter CSV file name (" + FILE_NAME + "): ");
+        String fileName = sc.nextLine().trim();
+        if (fileName.isEmpty()) fileName = FILE_NAME;
+        try {
+            writeCsv(students, fileName);
+            System.out.println(" Exported " + students.size() + " student(s) to " + fileName);
+        } catch (IOException e) {
+            System.out.println(" Error saving data: " + e.getMessage());
+        }
+    }
+
+    // The CSV readCsv imports: a header line, then every student in roster order
+    private static void writeCsv(StudentStore roster, String fileName) throws IOException {
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(fileName), 1 << 16))) {
+            pw.println("ID,Name,Age,Class,Department,GPA,Contact");
+            roster.forEach(s -> pw.println(s.toCSV()));
+            if (pw.checkError()) throw new IOException("write to " + fileName + " failed");
+        }
+    }
+
+    private static void importStudents() {
+        System.out.print("Enter CSV file name (" + FILE_NAME + "): ");
+        String fileName = sc.nextLine().trim();
+        if (fileName.isEmpty()) fileName = FILE_NAME;
+        if (!new File(fileName).exists()) {
+            System.out.println("File not found!");
+            return;
+        }
+        readCsv(fileName, true);
+    }
+
+    // Adds every well-formed row with a new ID; journaled when importing into a live roster
+    private static void readCsv(String fileName, boolean journaled) {
+        try {
+            StudentCsvLoader.Result result = StudentCsvLoader.load(Paths.get(fileName));
+            int duplicates = 0;
+            List<String> duplicateSamples = new ArrayList<>();
+            long seq = 0;
+            for (int i = 0; i < result.students.size(); i++) {
+                Student s = result.students.get(i);
+                if (students.add(s)) {
+                    if (journaled) seq = journal.logAdd(s);
+                } else if (duplicates++ < StudentCsvLoader.MAX_ERROR_SAMPLES) {
+                    duplicateSamples.add("line " + result.lines[i] + ": duplicate ID " + s.getId());
                 }
             }
+            if (journaled) journal.awaitDurable(seq);
             System.out.println(" Data loaded successfully!");
+            if (result.errorCount > 0 || duplicates > 0) {
+                System.out.println(" Skipped " + (result.errorCount + duplicates) + " row(s) in " + fileName
+                        + " (" + result.errorCount + " malformed, " + duplicates + " duplicate ID):");
+                for (String sample : result.errorSamples) System.out.println("   " + sample);
+                for (String sample : duplicateSamples) System.out.println("   " + sample);
+            }
         } catch (IOException e) {
             System.out.println(" Error loading data: " + e.getMessage());
         }
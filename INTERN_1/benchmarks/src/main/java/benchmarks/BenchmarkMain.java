@@ -0,0 +1,178 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs JMH with JSON results written to jmh-result.json unless -rf/-rff say otherwise, e.g.
+//   java -jar benchmarks.jar Theater -p venue=100x100
+// and compares two such files:
+//   java -jar benchmarks.jar compare before.json after.json
+public final class BenchmarkMain {
+    private static final Map<String, String> units = new LinkedHashMap<>();  // per compare key
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("compare")) {
+            if (args.length != 3) {
+                System.err.println("Usage: compare <before.json> <after.json>");
+                System.exit(1);
+            }
+            compare(Path.of(args[1]), Path.of(args[2]));
+            return;
+        }
+        List<String> jmh = new ArrayList<>(Arrays.asList(args));
+        if (!jmh.contains("-rf")) jmh.addAll(List.of("-rf", "json"));
+        if (!jmh.contains("-rff")) jmh.addAll(List.of("-rff", "jmh-result.json"));
+        org.openjdk.jmh.Main.main(jmh.toArray(new String[0]));
+    }
+
+    // One line per benchmark and parameter set found in either file. Every benchmark here
+    // reports time per operation, so a negative change is an improvement.
+    static void compare(Path before, Path after) throws IOException {
+        Map<String, double[]> old = scores(before), now = scores(after);
+        int width = 20;
+        for (String key : old.keySet()) width = Math.max(width, key.length());
+        for (String key : now.keySet()) width = Math.max(width, key.length());
+        System.out.printf("%-" + width + "s %14s %14s %9s  %s%n", "Benchmark", "Before", "After", "Change", "Unit");
+        Map<String, double[]> all = new LinkedHashMap<>(old);
+        now.forEach(all::putIfAbsent);
+        for (String key : all.keySet()) {
+            double[] b = old.get(key), a = now.get(key);
+            String unit = units.get(key);
+            if (b == null || a == null) {
+                System.out.printf("%-" + width + "s %14s %14s %9s  %s%n", key, b == null ? "-" : score(b),
+                        a == null ? "-" : score(a), "", unit);
+            } else {
+                System.out.printf("%-" + width + "s %14s %14s %+8.1f%%  %s%n", key, score(b), score(a),
+                        (a[0] - b[0]) / b[0] * 100, unit);
+            }
+        }
+    }
+
+    private static String score(double[] s) {
+        return String.format("%.3f +- %.3f", s[0], s[1]);
+    }
+
+    // "TheaterBenchmark.availableCount venue=100x100" -> {score, error}
+    @SuppressWarnings("unchecked")
+    private static Map<String, double[]> scores(Path file) throws IOException {
+        Map<String, double[]> scores = new LinkedHashMap<>();
+        for (Object o : (List<Object>) new Json(Files.readString(file)).value()) {
+            Map<String, Object> run = (Map<String, Object>) o;
+            StringBuilder key = new StringBuilder((String) run.get("benchmark"));
+            key.delete(0, key.lastIndexOf(".", key.lastIndexOf(".") - 1) + 1);
+            Map<String, Object> params = (Map<String, Object>) run.get("params");
+            if (params != null) params.forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            Object error = metric.get("scoreError");
+            scores.put(key.toString(), new double[]{(Double) metric.get("score"), error instanceof Double d ? d : 0});
+            units.put(key.toString(), (String) metric.get("scoreUnit"));
+        }
+        return scores;
+    }
+
+    // Just enough JSON for JMH's result files: objects, arrays, strings, numbers and literals
+    private static final class Json {
+        private final String s;
+        private int i;
+
+        Json(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skipSpace();
+            if (i >= s.length()) throw error("unexpected end");
+            char c = s.charAt(i);
+            switch (c) {
+                case '{': {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    i++;
+                    skipSpace();
+                    if (s.charAt(i) == '}') { i++; return map; }
+                    do {
+                        skipSpace();
+                        String key = string();
+                        expect(':');
+                        map.put(key, value());
+                        skipSpace();
+                    } while (s.charAt(i++) == ',');
+                    if (s.charAt(i - 1) != '}') throw error("expected }");
+                    return map;
+                }
+                case '[': {
+                    List<Object> list = new ArrayList<>();
+                    i++;
+                    skipSpace();
+                    if (s.charAt(i) == ']') { i++; return list; }
+                    do {
+                        list.add(value());
+                        skipSpace();
+                    } while (s.charAt(i++) == ',');
+                    if (s.charAt(i - 1) != ']') throw error("expected ]");
+                    return list;
+                }
+                case '"':
+                    return string();
+                default: {
+                    int start = i;
+                    while (i < s.length() && ",}] \t\r\n".indexOf(s.charAt(i)) < 0) i++;
+                    String word = s.substring(start, i);
+                    switch (word) {
+                        case "null": return null;
+                        case "true": return Boolean.TRUE;
+                        case "false": return Boolean.FALSE;
+                        case "NaN": return Double.NaN;
+                        default:
+                            try {
+                                return Double.parseDouble(word);
+                            } catch (NumberFormatException e) {
+                                throw error("bad value " + word);
+                            }
+                    }
+                }
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            for (char c; (c = s.charAt(i++)) != '"'; ) {
+                if (c != '\\') { out.append(c); continue; }
+                char e = s.charAt(i++);
+                switch (e) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'u': out.append((char) Integer.parseInt(s.substring(i, i + 4), 16)); i += 4; break;
+                    default: out.append(e);
+                }
+            }
+            return out.toString();
+        }
+
+        private void expect(char c) {
+            skipSpace();
+            if (i >= s.length() || s.charAt(i) != c) throw error("expected " + c);
+            i++;
+        }
+
+        private void skipSpace() {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON " + message + " at offset " + i);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// The programs live in the default package, which code in a named package cannot name, so
+// benchmarks reach them through method handles. A handle kept in a static final field is a
+// constant to the JIT and costs the same as a direct call. Handles are adapted to take and
+// return Object wherever a program type appears, so call sites can use invokeExact.
+final class Handles {
+    private Handles() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("class " + name + " is not on the classpath", e);
+        }
+    }
+
+    static MethodHandle constructor(String owner, Class<?>... parameters) {
+        Class<?> c = type(owner);
+        try {
+            return erase(lookup(c).findConstructor(c, MethodType.methodType(void.class, parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no constructor " + owner + MethodType.methodType(void.class, parameters), e);
+        }
+    }
+
+    static MethodHandle method(String owner, String name, Class<?> returns, Class<?>... parameters) {
+        Class<?> c = type(owner);
+        try {
+            return erase(lookup(c).findVirtual(c, name, MethodType.methodType(returns, parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no method " + owner + "." + name, e);
+        }
+    }
+
+    static MethodHandle staticMethod(String owner, String name, Class<?> returns, Class<?>... parameters) {
+        Class<?> c = type(owner);
+        try {
+            return erase(lookup(c).findStatic(c, name, MethodType.methodType(returns, parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no method " + owner + "." + name, e);
+        }
+    }
+
+    static MethodHandle getter(String owner, String field, Class<?> type) {
+        Class<?> c = type(owner);
+        try {
+            return erase(lookup(c).findGetter(c, field, type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no field " + owner + "." + field, e);
+        }
+    }
+
+    // Every default-package class is in the unnamed module with us, so its package-private
+    // members are open to a private lookup
+    private static MethodHandles.Lookup lookup(Class<?> c) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+    }
+
+    // Program types become Object; JDK and primitive types stay as they are
+    private static MethodHandle erase(MethodHandle h) {
+        MethodType t = h.type();
+        for (int i = 0; i < t.parameterCount(); i++) {
+            if (isProgramType(t.parameterType(i))) t = t.changeParameterType(i, Object.class);
+        }
+        if (isProgramType(t.returnType())) t = t.changeReturnType(Object.class);
+        return h.asType(t);
+    }
+
+    private static boolean isProgramType(Class<?> c) {
+        while (c.isArray()) c = c.getComponentType();
+        return !c.isPrimitive() && c.getPackageName().isEmpty();
+    }
+}
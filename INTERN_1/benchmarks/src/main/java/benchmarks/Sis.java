@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// The student information calls the benchmarks make, and the rosters they run against
+final class Sis {
+    static final MethodHandle NEW_STUDENT = Handles.constructor("Student", int.class, String.class, int.class,
+            String.class, String.class, double.class, String.class);
+    static final MethodHandle FIND = Handles.method("StudentStore", "find", Handles.type("Student"), int.class);
+    static final MethodHandle ADD = Handles.method("StudentStore", "add", boolean.class, Handles.type("Student"));
+    static final MethodHandle FOR_EACH = Handles.method("StudentStore", "forEach", void.class, Consumer.class);
+    static final MethodHandle NEW_ORDER_INDEX = Handles.constructor("StudentOrderIndex", Handles.type("StudentStore"));
+    static final MethodHandle FOR_RANGE = Handles.method("StudentOrderIndex", "forRange", void.class,
+            Handles.type("StudentOrderIndex$Order"), int.class, int.class, IntConsumer.class);
+    static final MethodHandle LOAD_CSV = Handles.staticMethod("StudentCsvLoader", "load", Handles.type("StudentCsvLoader$Result"), Path.class);
+    static final MethodHandle CSV_STUDENTS = Handles.getter("StudentCsvLoader$Result", "students", List.class);
+    static final MethodHandle READ_SNAPSHOT = Handles.staticMethod("StudentSnapshot", "read", List.class, Path.class);
+    static final MethodHandle WRITE_SNAPSHOT = Handles.staticMethod("StudentSnapshot", "write", void.class, Path.class, List.class);
+    static final MethodHandle WRITE_CSV = Handles.staticMethod("sis", "writeCsv", void.class, Handles.type("StudentStore"), String.class);
+
+    private static final MethodHandle NEW_REPOSITORY = Handles.constructor("StudentRepository");
+    private static final MethodHandle NEW_COLUMNAR = Handles.constructor("ColumnarStudentStore");
+    private static final MethodHandle NEW_TIMED = Handles.constructor("TimedStudentStore", Handles.type("StudentStore"));
+    private static final MethodHandle NEW_OBSERVED = Handles.constructor("ObservedStudentStore", Handles.type("StudentStore"));
+    private static final MethodHandle ADD_LISTENER = Handles.method("ObservedStudentStore", "addListener", void.class,
+            Handles.type("StudentListener"));
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Diya", "Ishaan", "Kavya", "Rohan", "Ananya", "Vihaan", "Meera"};
+    private static final String[] LAST_NAMES = {"Sharma", "Patel", "Iyer", "Reddy", "Singh", "Das", "Nair", "Gupta"};
+    private static final String[] CLASSES = {"FY", "SY", "TY", "BTech"};
+    private static final String[] DEPARTMENTS = {"CSE", "ECE", "MECH", "CIVIL", "IT"};
+
+    private Sis() {
+    }
+
+    // An empty roster wrapped as sis wraps its own: "map" is the default store, "columnar" the
+    // one -Dsis.store=columnar picks
+    static Object store(String kind) throws Throwable {
+        Object base = kind.equals("columnar") ? (Object) NEW_COLUMNAR.invokeExact() : (Object) NEW_REPOSITORY.invokeExact();
+        return (Object) NEW_OBSERVED.invokeExact((Object) NEW_TIMED.invokeExact(base));
+    }
+
+    static void addListener(Object store, Object listener) throws Throwable {
+        ADD_LISTENER.invokeExact(store, listener);
+    }
+
+    // Students with IDs 1..count, the same ones for the same seed
+    static List<Object> roster(int count, long seed) throws Throwable {
+        Random rnd = new Random(seed);
+        List<Object> students = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String name = FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[rnd.nextInt(LAST_NAMES.length)];
+            double gpa = Math.round((5 + rnd.nextDouble() * 5) * 100) / 100.0;
+            String contact = String.valueOf(9_000_000_000L + rnd.nextInt(1_000_000_000));
+            students.add((Object) NEW_STUDENT.invokeExact(id, name, 17 + rnd.nextInt(8), CLASSES[rnd.nextInt(CLASSES.length)],
+                    DEPARTMENTS[rnd.nextInt(DEPARTMENTS.length)], gpa, contact));
+        }
+        return students;
+    }
+
+    static void addAll(Object store, List<?> students) throws Throwable {
+        for (Object s : students) {
+            if (!(boolean) ADD.invokeExact(store, s)) throw new IllegalStateException("duplicate student " + s);
+        }
+    }
+
+    static Object order(String name) {
+        for (Object o : Handles.type("StudentOrderIndex$Order").getEnumConstants()) {
+            if (o.toString().equals(name)) return o;
+        }
+        throw new IllegalArgumentException("no order " + name);
+    }
+}
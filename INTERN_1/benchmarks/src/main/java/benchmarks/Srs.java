@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// The seat reservation calls the benchmarks make, and the theaters they run against
+final class Srs {
+    static final MethodHandle NEW_THEATER = Handles.constructor("Theater", int.class, int.class, Map.class);
+    static final MethodHandle RESERVE_SEATS = Handles.method("Theater", "reserveSeats", boolean.class, List.class, String.class);
+    static final MethodHandle CANCEL_RESERVATION = Handles.method("Theater", "cancelReservation", boolean.class, int.class, int.class);
+    static final MethodHandle AVAILABLE_COUNT = Handles.method("Theater", "availableCount", int.class);
+    static final MethodHandle SEARCH_BY_NAME = Handles.method("Theater", "searchByName", List.class, String.class);
+    static final MethodHandle LOAD_FROM_FILES = Handles.method("Theater", "loadFromFiles", void.class, String.class, String.class);
+    static final MethodHandle SAVE_TO_FILES = Handles.method("Theater", "saveToFiles", void.class, String.class, String.class);
+
+    private static final MethodHandle READ_HISTORY = Handles.staticMethod("Theater", "readHistory", Handles.type("BookingLog"), Path.class);
+    private static final MethodHandle CUSTOMER_NAME = Handles.getter("BookingRecord", "customerName", String.class);
+    private static final MethodHandle ROW = Handles.getter("BookingRecord", "row", int.class);
+    private static final MethodHandle SEAT_NUMBER = Handles.getter("BookingRecord", "seatNumber", int.class);
+    private static final MethodHandle CATEGORY = Handles.getter("BookingRecord", "category", Handles.type("Category"));
+    private static final MethodHandle PRICE = Handles.getter("BookingRecord", "price", double.class);
+    private static final MethodHandle TIMESTAMP = Handles.getter("BookingRecord", "timestamp", LocalDateTime.class);
+    private static final MethodHandle CANCELLATION = Handles.getter("BookingRecord", "cancellation", boolean.class);
+
+    static final int CUSTOMERS = 1000;
+
+    private Srs() {
+    }
+
+    // The prices srs starts a show with
+    static Map<Object, Double> prices() {
+        Object[] categories = Handles.type("Category").getEnumConstants();  // VIP, REGULAR, ECONOMY
+        Map<Object, Double> prices = new HashMap<>();
+        prices.put(categories[0], 500.0);
+        prices.put(categories[1], 300.0);
+        prices.put(categories[2], 150.0);
+        return prices;
+    }
+
+    static Object theater(int rows, int cols) throws Throwable {
+        return (Object) NEW_THEATER.invokeExact(rows, cols, (Map) prices());
+    }
+
+    // "100x100" as {100, 100}
+    static int[] venue(String size) {
+        String[] parts = size.split("x");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    static String customer(int i) {
+        return "Customer " + i;
+    }
+
+    // Adds records history entries, each booking a random seat or cancelling it if it is taken,
+    // spread over CUSTOMERS customers; about half the seats end up booked
+    static void fillHistory(Object theater, int rows, int cols, int records, long seed) throws Throwable {
+        Random rnd = new Random(seed);
+        for (int n = 0; n < records; n++) {
+            int r = 1 + rnd.nextInt(rows), c = 1 + rnd.nextInt(cols);
+            boolean booked = (boolean) RESERVE_SEATS.invokeExact(theater, (List) List.of(new int[]{r, c}),
+                    customer(rnd.nextInt(CUSTOMERS)));
+            if (!booked) CANCEL_RESERVATION.invoke(theater, r, c);
+        }
+    }
+
+    // Rewrites a binary history file as the CSV srs kept history in before, which it still loads
+    static void writeHistoryCsv(Path binary, Path csv) throws Throwable {
+        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        List<?> history = (List<?>) (Object) READ_HISTORY.invokeExact(binary);
+        try (BufferedWriter w = Files.newBufferedWriter(csv)) {
+            w.write("customerName,row,seat,category,price,timestamp\n");
+            for (Object br : history) {
+                LocalDateTime t = (LocalDateTime) TIMESTAMP.invokeExact(br);
+                w.write((String) CUSTOMER_NAME.invokeExact(br) + "," + (int) ROW.invokeExact(br) + ","
+                        + (int) SEAT_NUMBER.invokeExact(br) + "," + (Object) CATEGORY.invokeExact(br) + ","
+                        + String.format("%.2f", (double) PRICE.invokeExact(br)) + "," + (t == null ? "" : t.format(dtf))
+                        + ((boolean) CANCELLATION.invokeExact(br) ? ",cancelled" : "") + "\n");
+            }
+        }
+    }
+}
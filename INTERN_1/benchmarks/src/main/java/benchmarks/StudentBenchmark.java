@@ -0,0 +1,95 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// In-memory roster operations against either store, with the order index attached as sis
+// attaches it after loading
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentBenchmark {
+    static final int PAGE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Roster {
+        @Param({"10000", "1000000"})
+        public int roster;
+
+        @Param({"map", "columnar"})
+        public String store;
+
+        Object students, orders;
+        int[] ids;  // every id once, shuffled
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            students = Sis.store(store);
+            Sis.addAll(students, Sis.roster(roster, 42));
+            orders = Sis.NEW_ORDER_INDEX.invoke(students);
+            Sis.addListener(students, orders);
+            ids = new int[roster];
+            for (int i = 0; i < roster; i++) ids[i] = i + 1;
+            Random rnd = new Random(42);
+            for (int i = roster - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1), t = ids[i];
+                ids[i] = ids[j];
+                ids[j] = t;
+            }
+        }
+
+        int nextId() {
+            int id = ids[next];
+            next = next + 1 == ids.length ? 0 : next + 1;
+            return id;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Page {
+        @Param({"NAME", "GPA"})
+        public String order;
+
+        Object value;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            value = Sis.order(order);
+        }
+    }
+
+    // findStudentById
+    @Benchmark
+    public Object find(Roster r) throws Throwable {
+        return (Object) Sis.FIND.invokeExact(r.students, r.nextId());
+    }
+
+    // One page of the sorted listing: sortStudents walks the order index and looks each id up
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void sortedPage(Roster r, Page p, Blackhole bh) throws Throwable {
+        Object students = r.students;
+        IntConsumer show = id -> {
+            try {
+                bh.consume((Object) Sis.FIND.invokeExact(students, id));
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Sis.FOR_RANGE.invokeExact(r.orders, p.value, r.nextId() % (r.roster - PAGE), PAGE, show);
+    }
+
+    // Building every ordering from scratch, what sis pays once after loading
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object buildOrderIndex(Roster r) throws Throwable {
+        return (Object) Sis.NEW_ORDER_INDEX.invokeExact(r.students);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Loading and saving a roster: the CSV sis imports on its first run and exports on request,
+// and the binary snapshot it checkpoints to and starts from afterwards
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentFilesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Roster {
+        @Param({"10000", "1000000"})
+        public int roster;
+
+        List<Object> students;
+        Object store;  // students in the roster sis keeps them in
+        Path dir, csv, snapshot, exported, saved;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            students = Sis.roster(roster, 42);
+            store = Sis.store("map");
+            Sis.addAll(store, students);
+            dir = Scratch.create("sis-bench");
+            csv = dir.resolve("students.csv");
+            snapshot = dir.resolve("students.snap");
+            exported = dir.resolve("exported.csv");
+            saved = dir.resolve("saved.snap");
+            Sis.WRITE_CSV.invokeExact(store, csv.toString());
+            Sis.WRITE_SNAPSHOT.invokeExact(snapshot, (List) students);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            Scratch.delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Store {
+        @Param({"map", "columnar"})
+        public String store;
+    }
+
+    // loadStudents on a first run: the CSV parsed in parallel chunks, then added to the roster
+    @Benchmark
+    public Object loadCsv(Roster r, Store s) throws Throwable {
+        Object students = Sis.store(s.store);
+        Sis.addAll(students, (List<?>) (List) Sis.CSV_STUDENTS.invokeExact((Object) Sis.LOAD_CSV.invokeExact(r.csv)));
+        return students;
+    }
+
+    // loadStudents once a snapshot exists
+    @Benchmark
+    public Object loadSnapshot(Roster r, Store s) throws Throwable {
+        Object students = Sis.store(s.store);
+        Sis.addAll(students, (List<?>) (List) Sis.READ_SNAPSHOT.invokeExact(r.snapshot));
+        return students;
+    }
+
+    // exportStudents
+    @Benchmark
+    public void exportCsv(Roster r) throws Throwable {
+        Sis.WRITE_CSV.invokeExact(r.store, r.exported.toString());
+    }
+
+    // The checkpoint written on exit and after journal replay
+    @Benchmark
+    public void writeSnapshot(Roster r) throws Throwable {
+        Sis.WRITE_SNAPSHOT.invokeExact(r.saved, (List) new ArrayList<>(r.students));
+    }
+}
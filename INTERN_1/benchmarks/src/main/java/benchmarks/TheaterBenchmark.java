@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// In-memory Theater operations. Bookings run against a half-full venue: each call books a free
+// seat and cancels it again, so occupancy stays put; history still grows by two records a
+// call, so the venue is rebuilt for every iteration.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TheaterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Venue {
+        @Param({"8x10", "100x100", "1000x1000"})
+        public String venue;
+
+        Object theater;
+        List<List<int[]>> freeSeats;  // one single-seat booking request per free seat, shuffled
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws Throwable {
+            int[] size = Srs.venue(venue);
+            theater = Srs.theater(size[0], size[1]);
+            Random rnd = new Random(42);
+            freeSeats = new ArrayList<>();
+            for (int r = 1; r <= size[0]; r++) {
+                for (int c = 1; c <= size[1]; c++) {
+                    List<int[]> seat = List.of(new int[]{r, c});
+                    if (rnd.nextBoolean()) Srs.RESERVE_SEATS.invoke(theater, seat, Srs.customer(rnd.nextInt(Srs.CUSTOMERS)));
+                    else freeSeats.add(seat);
+                }
+            }
+            Collections.shuffle(freeSeats, rnd);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"10000", "1000000"})
+        public int records;
+
+        Object theater;
+        String[] names;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            theater = Srs.theater(100, 100);
+            Srs.fillHistory(theater, 100, 100, records, 42);
+            names = new String[Srs.CUSTOMERS];
+            for (int i = 0; i < names.length; i++) names[i] = Srs.customer(i);
+        }
+    }
+
+    // reserveSeats of one free seat followed by cancelReservation of it
+    @Benchmark
+    public boolean reserveThenCancel(Venue v) throws Throwable {
+        List<int[]> seat = v.freeSeats.get(v.next);
+        v.next = v.next + 1 == v.freeSeats.size() ? 0 : v.next + 1;
+        boolean booked = (boolean) Srs.RESERVE_SEATS.invokeExact(v.theater, (List) seat, "Benchmark");
+        int[] pos = seat.get(0);
+        return booked & (boolean) Srs.CANCEL_RESERVATION.invokeExact(v.theater, pos[0], pos[1]);
+    }
+
+    @Benchmark
+    public int availableCount(Venue v) throws Throwable {
+        return (int) Srs.AVAILABLE_COUNT.invokeExact(v.theater);
+    }
+
+    // Every booking and cancellation of one customer, about records / 1000 of them
+    @Benchmark
+    public void searchByName(History h, Blackhole bh) throws Throwable {
+        String name = h.names[h.next];
+        h.next = h.next + 1 == h.names.length ? 0 : h.next + 1;
+        bh.consume((List) Srs.SEARCH_BY_NAME.invokeExact(h.theater, name));
+    }
+}
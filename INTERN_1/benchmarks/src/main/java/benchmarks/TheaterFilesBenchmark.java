@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Loading and saving a show: seats.csv for a 100x100 venue plus a history of the given
+// length, read from the binary file srs writes or from the CSV it kept history in before
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TheaterFilesBenchmark {
+    static final int ROWS = 100, COLS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Show {
+        @Param({"10000", "1000000"})
+        public int records;
+
+        Object theater;
+        Path dir;
+        String seats, binaryHistory, csvHistory, savedSeats, savedHistory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Throwable {
+            theater = Srs.theater(ROWS, COLS);
+            Srs.fillHistory(theater, ROWS, COLS, records, 42);
+            dir = Scratch.create("srs-bench");
+            seats = dir.resolve("seats.csv").toString();
+            binaryHistory = dir.resolve("history.bin").toString();
+            csvHistory = dir.resolve("history.csv").toString();
+            savedSeats = dir.resolve("saved-seats.csv").toString();
+            savedHistory = dir.resolve("saved-history.bin").toString();
+            Srs.SAVE_TO_FILES.invoke(theater, seats, binaryHistory);
+            Srs.writeHistoryCsv(Path.of(binaryHistory), Path.of(csvHistory));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            Scratch.delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Format {
+        @Param({"binary", "csv"})
+        public String history;
+    }
+
+    // What opening a show costs before its journal is replayed
+    @Benchmark
+    public Object loadFromFiles(Show show, Format format) throws Throwable {
+        Object theater = Srs.theater(ROWS, COLS);
+        String history = format.history.equals("csv") ? show.csvHistory : show.binaryHistory;
+        Srs.LOAD_FROM_FILES.invokeExact(theater, show.seats, history);
+        return theater;
+    }
+
+    // Snapshot of seats and history, written to temporary files and moved into place
+    @Benchmark
+    public void saveToFiles(Show show) throws Throwable {
+        Srs.SAVE_TO_FILES.invokeExact(show.theater, show.savedSeats, show.savedHistory);
+    }
+}
@@ -0,0 +1,294 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// The file side of the srs and sis journals: an append-only log of one-line text records,
+// each framed as 8 hex digits of CRC32, '|', the record, '\n'. A writer thread batches
+// whatever is queued into one write + fsync (group commit). Rolling moves the live log to
+// <file>.1 for the caller to fold into a snapshot and delete; until then a rolled log is
+// replayed before the live one. Records must not contain line breaks.
+final class GroupCommitLog implements Closeable {
+    private static final Metrics.Timer COMMIT = Metrics.timer("journalCommit");  // one group write + fsync
+    private static final Metrics.Counter RECORDS = Metrics.counter("journalRecords");
+
+    // Applies one replayed record, throwing an unchecked exception if it is malformed
+    interface Replay {
+        void apply(String record);
+    }
+
+    private final Path file;
+    private final Path rolledFile;
+    private final String writerName;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private FileChannel channel;
+    private long enqueuedSeq;
+    private long durableSeq;
+    private long recordsSinceRoll;
+    private boolean closed;
+    private IOException failure;
+
+    GroupCommitLog(Path file, String writerName) {
+        this.file = file;
+        this.rolledFile = Paths.get(file + ".1");
+        this.writerName = writerName;
+    }
+
+    boolean hasRolled() {
+        return Files.exists(rolledFile);
+    }
+
+    // Replays the rolled and live logs, drops a torn tail left by a crash, and starts the
+    // writer. Returns the number of records applied. A record that passes its checksum but
+    // cannot be applied is not a torn write, so it fails the open instead of being dropped;
+    // so does any other error, after which every append fails too.
+    int open(Replay replay) throws IOException {
+        try {
+            int[] applied = {0};
+            if (hasRolled()) replay(rolledFile, replay, applied);
+            long validLength = Files.exists(file) ? replay(file, replay, applied) : 0;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(validLength);
+            channel.position(validLength);
+            synchronized (lock) {
+                recordsSinceRoll = applied[0];
+            }
+            Thread writer = new Thread(this::writeLoop, writerName);
+            writer.setDaemon(true);
+            writer.start();
+            return applied[0];
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+            }
+            throw e;
+        }
+    }
+
+    // Queues one record without waiting for it to reach the disk; returns its sequence number
+    long append(String record) throws IOException {
+        synchronized (lock) {
+            if (failure != null) throw failure;
+            if (closed) throw new IOException("journal is closed");
+            pending.add(frame(record));
+            recordsSinceRoll++;
+            lock.notifyAll();
+            return ++enqueuedSeq;
+        }
+    }
+
+    // Blocks until every record up to seq has been fsynced
+    void awaitDurable(long seq) throws IOException {
+        synchronized (lock) {
+            while (durableSeq < seq) {
+                if (failure != null) throw failure;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted waiting for journal sync");
+                }
+            }
+        }
+    }
+
+    long recordsSinceRoll() {
+        synchronized (lock) {
+            return recordsSinceRoll;
+        }
+    }
+
+    // True once a write or fsync has failed; nothing appended from then on is accepted
+    boolean failed() {
+        synchronized (lock) {
+            return failure != null;
+        }
+    }
+
+    // Moves the live log aside and starts an empty one, once everything queued is on disk.
+    // A rolled log still there (its snapshot failed, or open() replayed it) is in no snapshot
+    // yet, so the live records are appended to it instead of replacing it.
+    void roll() throws IOException {
+        synchronized (lock) {
+            awaitIdle();
+            channel.close();
+            if (hasRolled()) {
+                try (FileChannel rolled = FileChannel.open(rolledFile, StandardOpenOption.WRITE)) {
+                    // past a corrupt record replay stops, so the live records go before any such tail
+                    rolled.truncate(intactLength(Files.readAllBytes(rolledFile)));
+                    rolled.position(rolled.size());
+                    ByteBuffer live = ByteBuffer.wrap(Files.readAllBytes(file));
+                    while (live.hasRemaining()) rolled.write(live);
+                    rolled.force(false);
+                }
+            } else {
+                Files.move(file, rolledFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+            // a crash before the truncation leaves the live records in both files; callers
+            // replay them idempotently
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            // records fsynced into the new file are only found again if its name is on disk too
+            syncDirectory(file);
+            recordsSinceRoll = 0;
+        }
+    }
+
+    // Called once a snapshot holds everything in the rolled log
+    void deleteRolled() throws IOException {
+        Files.deleteIfExists(rolledFile);
+    }
+
+    // Waits for everything queued to reach the disk, then stops the writer
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            awaitIdle();
+            closed = true;
+            lock.notifyAll();
+        }
+        if (channel != null) channel.close();
+    }
+
+    // Stops the writer and closes the file without waiting for anything queued
+    void abandon() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            pending.clear();
+            lock.notifyAll();
+        }
+        if (channel != null) channel.close();
+    }
+
+    // Fsyncs the directory holding file, making a create, rename or delete in it durable.
+    // Some platforms (Windows) cannot open a directory for this; their file systems commit
+    // renames on their own, so it is skipped there.
+    static void syncDirectory(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (ch) {
+            ch.force(true);
+        }
+    }
+
+    // Waits until the writer has nothing queued or in flight; caller holds lock
+    private void awaitIdle() throws IOException {
+        while (durableSeq < enqueuedSeq && failure == null) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for journal sync");
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void writeLoop() {
+        List<String> batch = new ArrayList<>();
+        while (true) {
+            long upTo;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) return;
+                batch.addAll(pending);
+                pending.clear();
+                upTo = enqueuedSeq;
+            }
+            long started = COMMIT.start();
+            try {
+                StringBuilder sb = new StringBuilder(batch.size() * 64);
+                for (String line : batch) sb.append(line);
+                ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+                while (buf.hasRemaining()) channel.write(buf);
+                channel.force(false);
+                COMMIT.stop(started);
+                RECORDS.add(batch.size());
+                synchronized (lock) {
+                    durableSeq = upTo;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // Applies every intact record in file and stops at the first torn or corrupt line.
+    // Returns the byte length of the intact prefix.
+    private static long replay(Path file, Replay replay, int[] applied) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        long valid = 0;
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String record = unframe(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+            if (record == null) break;
+            try {
+                replay.apply(record);
+            } catch (RuntimeException e) {
+                throw new IOException(file + " has a malformed record at byte " + start + ": " + e.getMessage());
+            }
+            applied[0]++;
+            valid = i + 1;
+            start = i + 1;
+        }
+        return valid;
+    }
+
+    // Byte length of the intact records at the start of bytes
+    private static long intactLength(byte[] bytes) {
+        long valid = 0;
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            if (unframe(new String(bytes, start, i - start, StandardCharsets.UTF_8)) == null) break;
+            valid = i + 1;
+            start = i + 1;
+        }
+        return valid;
+    }
+
+    private static String frame(String record) {
+        String hex = Long.toHexString(crc(record));
+        return "00000000".substring(hex.length()) + hex + '|' + record + '\n';
+    }
+
+    private static String unframe(String line) {
+        if (line.length() < 10 || line.charAt(8) != '|') return null;
+        String record = line.substring(9);
+        try {
+            return Long.parseLong(line, 0, 8, 16) == crc(record) ? record : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long crc(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+
+// Encodes listing output straight into a reusable byte buffer and hands it to the stream in
+// large chunks, so a long listing costs one write per 64 KB instead of a println and a
+// String.format per row. ASCII is copied byte by byte; other text goes through the platform
+// charset, as System.out would encode it.
+class ListingWriter implements Flushable {
+    enum Format { TABLE, CSV, JSON }
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MIN_CAPACITY = 64;
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final OutputStream out;
+    private final byte[] buf;
+    private final int capacity;
+    private int len;
+
+    ListingWriter(OutputStream out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    // A smaller buffer suits short responses built in memory
+    ListingWriter(OutputStream out, int capacity) {
+        this.out = out;
+        this.capacity = Math.max(MIN_CAPACITY, capacity);
+        this.buf = new byte[this.capacity];
+    }
+
+    // "table", "csv" or "json" (case-insensitive); blank means table, anything else is null
+    static Format parseFormat(String s) {
+        return switch (s.trim().toLowerCase()) {
+            case "", "table" -> Format.TABLE;
+            case "csv" -> Format.CSV;
+            case "json" -> Format.JSON;
+            default -> null;
+        };
+    }
+
+    ListingWriter text(String s) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) return bytes(s.substring(i).getBytes(CHARSET));
+            if (len == capacity) drain();
+            buf[len++] = (byte) c;
+        }
+        return this;
+    }
+
+    // Like %-<width>s: the text, then spaces up to width characters
+    ListingWriter padded(String s, int width) {
+        text(s);
+        return spaces(width - s.length());
+    }
+
+    ListingWriter ch(char c) {
+        if (c >= 0x80) return text(String.valueOf(c));
+        if (len == capacity) drain();
+        buf[len++] = (byte) c;
+        return this;
+    }
+
+    ListingWriter spaces(int n) {
+        for (; n > 0; n--) ch(' ');
+        return this;
+    }
+
+    ListingWriter newline() {
+        return ch('\n');
+    }
+
+    ListingWriter number(long v) {
+        reserve(20);
+        if (v == Long.MIN_VALUE) return text("-9223372036854775808");
+        if (v < 0) {
+            buf[len++] = '-';
+            v = -v;
+        }
+        int start = len;
+        do {
+            buf[len++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        reverse(start, len - 1);
+        return this;
+    }
+
+    // Like %-<width>d
+    ListingWriter padded(long v, int width) {
+        reserve(40);
+        int start = len;
+        number(v);
+        return spaces(width - (len - start));
+    }
+
+    // Like %.2f, which rounds the shortest decimal form of v half-up. Scaling by 100 agrees
+    // with that except within rounding noise of a half cent, which goes through BigDecimal.
+    ListingWriter decimal2(double v) {
+        double scaled = v * 100;
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(scaled) >= 1e15) return text(String.format("%.2f", v));
+        if (Double.compare(v, 0.0) < 0) ch('-');  // %.2f keeps the sign of -0.001 and -0.0
+        double frac = Math.abs(scaled - (long) scaled);
+        if (Math.abs(frac - 0.5) < 1e-6) {
+            return text(BigDecimal.valueOf(Math.abs(v)).setScale(2, RoundingMode.HALF_UP).toPlainString());
+        }
+        long cents = Math.round(Math.abs(scaled));
+        number(cents / 100);
+        ch('.');
+        long c = cents % 100;
+        ch((char) ('0' + c / 10));
+        return ch((char) ('0' + c % 10));
+    }
+
+    // Like %-<width>.2f
+    ListingWriter padded2(double v, int width) {
+        reserve(40);
+        int start = len;
+        decimal2(v);
+        return spaces(width - (len - start));
+    }
+
+    // yyyy-MM-dd HH:mm:ss
+    ListingWriter dateTime(LocalDateTime t) {
+        reserve(20);
+        number(t.getYear());
+        ch('-');
+        twoDigits(t.getMonthValue());
+        ch('-');
+        twoDigits(t.getDayOfMonth());
+        ch(' ');
+        twoDigits(t.getHour());
+        ch(':');
+        twoDigits(t.getMinute());
+        ch(':');
+        return twoDigits(t.getSecond());
+    }
+
+    // A JSON string literal, quotes included
+    ListingWriter quoted(String s) {
+        ch('"');
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> text("\\\"");
+                case '\\' -> text("\\\\");
+                case '\n' -> text("\\n");
+                case '\r' -> text("\\r");
+                case '\t' -> text("\\t");
+                default -> {
+                    if (c < 0x20) text(String.format("\\u%04x", (int) c));
+                    else if (Character.isHighSurrogate(c) && i + 1 < n) text(s.substring(i, ++i + 1));
+                    else ch(c);
+                }
+            }
+        }
+        return ch('"');
+    }
+
+    // A CSV field: commas and line breaks become spaces, as the save files write names
+    ListingWriter csvField(String s) {
+        return text(s.replace(',', ' ').replace('\n', ' ').replace('\r', ' '));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (len > 0) {
+            out.write(buf, 0, len);
+            len = 0;
+        }
+        out.flush();
+    }
+
+    // Makes room for n more bytes so a short field never straddles a drain
+    private void reserve(int n) {
+        if (len > capacity - n) drain();
+    }
+
+    private ListingWriter twoDigits(int v) {
+        ch((char) ('0' + v / 10));
+        return ch((char) ('0' + v % 10));
+    }
+
+    private ListingWriter bytes(byte[] b) {
+        for (int off = 0; off < b.length; ) {
+            if (len == capacity) drain();
+            int n = Math.min(b.length - off, capacity - len);
+            System.arraycopy(b, off, buf, len, n);
+            len += n;
+            off += n;
+        }
+        return this;
+    }
+
+    private void reverse(int i, int j) {
+        for (; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    // Hands a full buffer to the stream. Rows are written from inside forEach callbacks, which
+    // cannot throw IOException, so a failed write is rethrown unchecked.
+    private void drain() {
+        try {
+            out.write(buf, 0, len);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        len = 0;
+    }
+}
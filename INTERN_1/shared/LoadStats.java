@@ -0,0 +1,78 @@
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Outcomes and latency of one kind of operation in a load run. Every call is timed into a
+// Metrics histogram named load.<operation>, so a run can also be watched over JMX. A call is
+// ok, rejected (the engine said no: a seat already taken, an ID not found, which is normal
+// under contention) or an error (it threw).
+final class LoadStats {
+    final String name;
+    final Metrics.Timer latency;
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile String firstError;
+
+    LoadStats(String name) {
+        this.name = name;
+        this.latency = Metrics.timer("load." + name);
+    }
+
+    // started is the System.nanoTime() the call was due at
+    void done(long started, boolean accepted) {
+        latency.record(System.nanoTime() - started);
+        (accepted ? ok : rejected).increment();
+    }
+
+    void failed(long started, Throwable e) {
+        latency.record(System.nanoTime() - started);
+        errors.increment();
+        if (firstError == null) firstError = e.toString();
+    }
+
+    long calls() {
+        return ok.sum() + rejected.sum() + errors.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    // One thread per client: Executors.newVirtualThreadPerTaskExecutor on JDK 21+, looked up
+    // reflectively so the program still builds and runs on 17, where each client gets a
+    // platform thread instead
+    static ExecutorService clients() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads need JDK 21; running each client on a platform thread.");
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "load-client");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // Throughput over the run and latency percentiles, in microseconds, per operation
+    static void report(PrintStream out, double seconds, List<LoadStats> ops) {
+        out.printf("%-10s %10s %10s %10s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "calls", "ok", "rejected",
+                "errors", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        long total = 0, totalErrors = 0;
+        for (LoadStats op : ops) {
+            Metrics.Snapshot s = op.latency.snapshot();
+            long calls = op.calls();
+            total += calls;
+            totalErrors += op.errors.sum();
+            out.printf("%-10s %10d %10d %10d %8d %10.0f %9.1f %9.1f %9.1f %9.1f %9.1f%n", op.name, calls, op.ok.sum(),
+                    op.rejected.sum(), op.errors.sum(), calls / seconds, s.percentile(0.5) / 1000.0,
+                    s.percentile(0.9) / 1000.0, s.percentile(0.99) / 1000.0, s.percentile(0.999) / 1000.0,
+                    s.max() / 1000.0);
+        }
+        out.printf("%-10s %10d %10s %10s %8d %10.0f   in %.2f s%n", "total", total, "", "", totalErrors, total / seconds, seconds);
+        for (LoadStats op : ops) if (op.firstError != null) out.println("First " + op.name + " error: " + op.firstError);
+    }
+}
@@ -0,0 +1,349 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.*;
+
+// Process-wide latency histograms and counters. A timer records each timed call into
+// log-linear buckets (HDR style: 32 sub-buckets per power of two, so a reported latency is
+// within about 3% of the real one) with a single atomic increment, and everything is derived
+// from the buckets when read. Reading the clock twice costs about 100 ns, as much as a cheap
+// operation, so timers on hot paths time a random one call in sampleEvery: the percentiles
+// stay unbiased and the call count becomes an estimate (samples times sampleEvery).
+// Callers time an operation where they invoke it, with time(timer, call), so the operation
+// itself carries no timing code.
+// Once publish() is called every timer and counter appears over JMX as
+// <domain>:type=Timer,name=<op> or <domain>:type=Counter,name=<name>, and
+// <domain>:type=Metrics has a dump(file) operation that writes them all as CSV.
+final class Metrics {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_SHIFT = 40 - SUB_BITS;  // values from 2^41 ns (37 minutes) share the top bucket
+    private static final int BUCKETS = 2 * SUB_COUNT + MAX_SHIFT * SUB_COUNT;
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static volatile String domain;  // null until published
+
+    private Metrics() {
+    }
+
+    static final class Timer {
+        final String name;
+        private final int sampleMask;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private Timer(String name, int sampleEvery) {
+            this.name = name;
+            this.sampleMask = Integer.highestOneBit(Math.max(1, sampleEvery)) - 1;
+        }
+
+        // A System.nanoTime() reading to hand to stop(), or 0 if this call is not timed
+        long start() {
+            if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) return 0;
+            return System.nanoTime();
+        }
+
+        void stop(long started) {
+            if (started != 0) record(System.nanoTime() - started);
+        }
+
+        void record(long nanos) {
+            buckets.getAndIncrement(bucket(nanos));
+        }
+
+        // Exact when every call is timed
+        long calls() {
+            return snapshot().count * (sampleMask + 1);
+        }
+
+        Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) counts[i] = buckets.get(i);
+            return new Snapshot(counts);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        }
+    }
+
+    // A timer's buckets at one moment; latencies in nanoseconds
+    static final class Snapshot {
+        private final long[] counts;
+        final long count;  // calls timed
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long n = 0;
+            for (long c : counts) n += c;
+            this.count = n;
+        }
+
+        // Smallest bucket bound at or below which fraction q of the calls fall
+        long percentile(double q) {
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return highest(i);
+            }
+            return 0;
+        }
+
+        long max() {
+            for (int i = BUCKETS - 1; i >= 0; i--) if (counts[i] > 0) return highest(i);
+            return 0;
+        }
+
+        double mean() {
+            if (count == 0) return 0;
+            double sum = 0;
+            for (int i = 0; i < BUCKETS; i++) if (counts[i] > 0) sum += counts[i] * ((lowest(i) + highest(i)) / 2.0);
+            return sum / count;
+        }
+    }
+
+    static final class Counter {
+        final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        void increment() {
+            value.increment();
+        }
+
+        void add(long n) {
+            value.add(n);
+        }
+
+        long value() {
+            return value.sum();
+        }
+    }
+
+    // A timer that times every call
+    static Timer timer(String name) {
+        return timer(name, 1);
+    }
+
+    // sampleEvery is rounded down to a power of two
+    static Timer timer(String name, int sampleEvery) {
+        return timers.computeIfAbsent(name, n -> register(new Timer(n, sampleEvery)));
+    }
+
+    // Work for time(); E is whatever checked exception it lets through
+    interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    interface Run<E extends Exception> {
+        void run() throws E;
+    }
+
+    static <T, E extends Exception> T time(Timer timer, Call<T, E> call) throws E {
+        long started = timer.start();
+        try {
+            return call.call();
+        } finally {
+            timer.stop(started);
+        }
+    }
+
+    static <E extends Exception> void time(Timer timer, Run<E> run) throws E {
+        long started = timer.start();
+        try {
+            run.run();
+        } finally {
+            timer.stop(started);
+        }
+    }
+
+    static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register(new Counter(n)));
+    }
+
+    // Registers the MBeans under domain, for every metric so far and every one created later
+    static synchronized void publish(String domain) {
+        if (Metrics.domain != null) return;
+        Metrics.domain = domain;
+        Bean control = new Bean("Timers and counters of this process");
+        control.operation("dump", "Writes every timer and counter to a CSV file", "file", file -> {
+            dump(Paths.get(file));
+            return "Metrics written to " + file;
+        });
+        registerBean("type=Metrics", control);
+        timers.values().forEach(Metrics::register);
+        counters.values().forEach(Metrics::register);
+    }
+
+    // Writes one CSV line per timer (latencies in microseconds) and per counter
+    static void dump(Path file) throws IOException {
+        List<Timer> ts = new ArrayList<>(timers.values());
+        ts.sort(Comparator.comparing(t -> t.name));
+        List<Counter> cs = new ArrayList<>(counters.values());
+        cs.sort(Comparator.comparing(c -> c.name));
+        try (OutputStream os = Files.newOutputStream(file)) {
+            ListingWriter out = new ListingWriter(os);
+            out.text("# metrics at ").dateTime(LocalDateTime.now()).newline();
+            out.text("timer,count,meanMicros,p50Micros,p90Micros,p99Micros,p999Micros,maxMicros").newline();
+            for (Timer t : ts) {
+                Snapshot s = t.snapshot();
+                out.text(t.name).ch(',').number(t.calls()).ch(',').decimal2(s.mean() / 1000).ch(',')
+                   .decimal2(s.percentile(0.5) / 1000.0).ch(',').decimal2(s.percentile(0.9) / 1000.0).ch(',')
+                   .decimal2(s.percentile(0.99) / 1000.0).ch(',').decimal2(s.percentile(0.999) / 1000.0).ch(',')
+                   .decimal2(s.max() / 1000.0).newline();
+            }
+            out.newline().text("counter,value").newline();
+            for (Counter c : cs) out.text(c.name).ch(',').number(c.value()).newline();
+            out.flush();
+        }
+    }
+
+    private static int bucket(long v) {
+        if (v < 2 * SUB_COUNT) return v < 0 ? 0 : (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        if (shift > MAX_SHIFT) return BUCKETS - 1;
+        return 2 * SUB_COUNT + (shift - 1) * SUB_COUNT + (int) (v >>> shift) - SUB_COUNT;
+    }
+
+    private static long lowest(int i) {
+        if (i < 2 * SUB_COUNT) return i;
+        int shift = (i - 2 * SUB_COUNT) / SUB_COUNT + 1;
+        return (long) ((i - 2 * SUB_COUNT) % SUB_COUNT + SUB_COUNT) << shift;
+    }
+
+    private static long highest(int i) {
+        if (i < 2 * SUB_COUNT) return i;
+        int shift = (i - 2 * SUB_COUNT) / SUB_COUNT + 1;
+        return lowest(i) + (1L << shift) - 1;
+    }
+
+    private static Timer register(Timer t) {
+        if (domain == null) return t;
+        Bean b = new Bean("Latency of " + t.name + ", in microseconds");
+        b.attribute("Count", Long.class, t::calls);
+        b.attribute("MeanMicros", Double.class, () -> t.snapshot().mean() / 1000);
+        b.attribute("P50Micros", Double.class, () -> t.snapshot().percentile(0.5) / 1000.0);
+        b.attribute("P90Micros", Double.class, () -> t.snapshot().percentile(0.9) / 1000.0);
+        b.attribute("P99Micros", Double.class, () -> t.snapshot().percentile(0.99) / 1000.0);
+        b.attribute("P999Micros", Double.class, () -> t.snapshot().percentile(0.999) / 1000.0);
+        b.attribute("MaxMicros", Double.class, () -> t.snapshot().max() / 1000.0);
+        b.operation("reset", "Empties the histogram", null, ignored -> {
+            t.reset();
+            return "reset";
+        });
+        registerBean("type=Timer,name=" + t.name, b);
+        return t;
+    }
+
+    private static Counter register(Counter c) {
+        if (domain == null) return c;
+        Bean b = new Bean(c.name);
+        b.attribute("Value", Long.class, c::value);
+        registerBean("type=Counter,name=" + c.name, b);
+        return c;
+    }
+
+    private static void registerBean(String keys, Bean bean) {
+        try {
+            ObjectName name = new ObjectName(domain + ":" + keys);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) server.registerMBean(bean, name);
+        } catch (JMException e) {
+            // metrics are best effort; the program runs the same without them
+            System.out.println("Error publishing metric " + keys + ": " + e.getMessage());
+        }
+    }
+
+    interface Operation {
+        String run(String argument) throws IOException;
+    }
+
+    // Read-only attributes plus operations taking at most one string, described at run time
+    // so the metric classes need no public MBean interfaces
+    private static final class Bean implements DynamicMBean {
+        private final String description;
+        private final Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+        private final Map<String, Class<?>> types = new HashMap<>();
+        private final Map<String, Operation> operations = new LinkedHashMap<>();
+        private final Map<String, String[]> operationInfo = new HashMap<>();  // help, parameter name or null
+
+        Bean(String description) {
+            this.description = description;
+        }
+
+        void attribute(String name, Class<?> type, Supplier<Object> value) {
+            attributes.put(name, value);
+            types.put(name, type);
+        }
+
+        void operation(String name, String help, String parameter, Operation op) {
+            operations.put(name, op);
+            operationInfo.put(name, new String[]{help, parameter});
+        }
+
+        @Override
+        public Object getAttribute(String name) throws AttributeNotFoundException {
+            Supplier<Object> value = attributes.get(name);
+            if (value == null) throw new AttributeNotFoundException(name);
+            return value.get();
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            AttributeList list = new AttributeList();
+            for (String n : names) {
+                Supplier<Object> value = attributes.get(n);
+                if (value != null) list.add(new Attribute(n, value.get()));
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList list) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String name, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+            Operation op = operations.get(name);
+            if (op == null) throw new ReflectionException(new NoSuchMethodException(name));
+            try {
+                return op.run(params == null || params.length == 0 ? null : String.valueOf(params[0]));
+            } catch (IOException e) {
+                throw new MBeanException(e, e.getMessage());
+            }
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (String n : attributes.keySet())
+                attrs.add(new MBeanAttributeInfo(n, types.get(n).getName(), n, true, false, false));
+            List<MBeanOperationInfo> ops = new ArrayList<>();
+            for (String n : operations.keySet()) {
+                String[] info = operationInfo.get(n);
+                MBeanParameterInfo[] params = info[1] == null ? new MBeanParameterInfo[0]
+                        : new MBeanParameterInfo[]{new MBeanParameterInfo(info[1], String.class.getName(), info[1])};
+                ops.add(new MBeanOperationInfo(n, info[0], params, String.class.getName(), MBeanOperationInfo.ACTION));
+            }
+            return new MBeanInfo(Bean.class.getName(), description, attrs.toArray(new MBeanAttributeInfo[0]), null,
+                    ops.toArray(new MBeanOperationInfo[0]), null);
+        }
+    }
+}